@@ -14,8 +14,10 @@ import org.springframework.boot.resttestclient.TestRestTemplate;
 import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRestTemplate;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
@@ -23,6 +25,7 @@ import java.util.List;
 import static com.example.devicesapi.TestUtil.DEVICE_BRAND_1;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -36,6 +39,9 @@ public class DeviceControllerFunctionalTests {
     @Autowired
     private TestRestTemplate testRestTemplate;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     @Order(1)
     public void getDevices_ShouldReturnOk() {
@@ -171,7 +177,7 @@ public class DeviceControllerFunctionalTests {
         assertTrue(resp.getStatusCode().is2xxSuccessful());
         assertNotNull(resp.getBody());
         assertEquals(2L, resp.getBody().id());
-        assertEquals(State.IN_USE.getValue(), resp.getBody().state());
+        assertEquals(State.IN_USE, resp.getBody().state());
     }
 
     @Test
@@ -252,4 +258,55 @@ public class DeviceControllerFunctionalTests {
         assertNotNull(resp.getBody());
         assertEquals(3L, resp.getBody().id());
     }
+
+    @Test
+    @Order(13)
+    public void getDevices_WithLimit_ShouldFollowNextLink() {
+        ResponseEntity<List<DeviceResponse>> firstPage = testRestTemplate.exchange(
+                "/devices?limit=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertTrue(firstPage.getStatusCode().is2xxSuccessful());
+        assertNotNull(firstPage.getBody());
+        assertEquals(2, firstPage.getBody().size());
+
+        String link = firstPage.getHeaders().getFirst(HttpHeaders.LINK);
+        assertNotNull(link);
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+        ResponseEntity<List<DeviceResponse>> secondPage = testRestTemplate.exchange(
+                next,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertTrue(secondPage.getStatusCode().is2xxSuccessful());
+        assertNotNull(secondPage.getBody());
+        assertEquals(1, secondPage.getBody().size());
+        assertTrue(secondPage.getBody().getFirst().id() > firstPage.getBody().getLast().id());
+        assertNull(secondPage.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Order(14)
+    public void getDeviceById_AfterChangeByAnotherInstance_ShouldReturnChangedDevice() throws InterruptedException {
+        ResponseEntity<DeviceResponse> cached = testRestTemplate.getForEntity("/devices/1", DeviceResponse.class);
+        assertTrue(cached.getStatusCode().is2xxSuccessful());
+
+        // a write that bypasses this instance, as one made by another replica would
+        jdbcTemplate.update("UPDATE devices SET name = 'Changed Elsewhere', version = version + 1 WHERE id = 1");
+
+        String name = cached.getBody().name();
+        for (int attempt = 0; attempt < 50 && !"Changed Elsewhere".equals(name); attempt++) {
+            Thread.sleep(100);
+            name = testRestTemplate.getForEntity("/devices/1", DeviceResponse.class).getBody().name();
+        }
+        assertEquals("Changed Elsewhere", name);
+    }
 }
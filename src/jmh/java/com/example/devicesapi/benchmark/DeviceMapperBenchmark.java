@@ -0,0 +1,43 @@
+package com.example.devicesapi.benchmark;
+
+import com.example.devicesapi.entity.DeviceEntity;
+import com.example.devicesapi.mapper.DeviceMapper;
+import com.example.devicesapi.model.CreateDeviceRequest;
+import com.example.devicesapi.model.DeviceResponse;
+import com.example.devicesapi.model.State;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+
+import java.time.Instant;
+
+/**
+ * Per-request mapping between requests, entities and responses.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class DeviceMapperBenchmark {
+    private final DeviceMapper deviceMapper = new DeviceMapper();
+    private final DeviceEntity entity = new DeviceEntity(
+            42L, "Thermostat X100", "SmartHome", State.IN_USE, Instant.now(), 7L);
+    private final CreateDeviceRequest request = new CreateDeviceRequest("Thermostat X100", "SmartHome", State.AVAILABLE);
+    private final CreateDeviceRequest requestWithoutState = new CreateDeviceRequest("Thermostat X100", "SmartHome", null);
+
+    @Benchmark
+    public DeviceResponse fromEntityToDeviceResponse() {
+        return deviceMapper.fromEntityToDeviceResponse(entity);
+    }
+
+    @Benchmark
+    public DeviceEntity createDeviceRequestToEntity() {
+        return deviceMapper.createDeviceRequestToEntity(request);
+    }
+
+    @Benchmark
+    public DeviceEntity createDeviceRequestToEntityWithDefaultState() {
+        return deviceMapper.createDeviceRequestToEntity(requestWithoutState);
+    }
+
+    @Benchmark
+    public DeviceEntity createDeviceRequestToEntityWithId() {
+        return deviceMapper.createDeviceRequestToEntity(request, 42L);
+    }
+}
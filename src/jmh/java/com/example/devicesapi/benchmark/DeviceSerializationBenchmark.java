@@ -0,0 +1,110 @@
+package com.example.devicesapi.benchmark;
+
+import com.example.devicesapi.model.DeviceField;
+import com.example.devicesapi.model.DeviceResponse;
+import com.example.devicesapi.model.State;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of device lists as written for {@code GET /devices} pages, with all fields and
+ * with {@code fields=id,state}, in each format the endpoint can negotiate.
+ *
+ * The sizes of both serialized pages, plain and gzipped as sent with response compression, are reported as
+ * the {@link PayloadSize} secondary results of every benchmark to compare bytes on the wire.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class DeviceSerializationBenchmark {
+    private static final State[] STATES = State.values();
+
+    @Param({"1", "100", "10000", "100000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter writer;
+    private List<DeviceResponse> devices;
+    private List<DeviceResponse> idsAndStates;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = switch (format) {
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> JsonMapper.builder().build();
+        };
+        writer = mapper.writerFor(new TypeReference<List<DeviceResponse>>() {
+        });
+        OffsetDateTime createdAt = OffsetDateTime.now(ZoneOffset.UTC);
+        devices = IntStream.range(0, size)
+                .mapToObj(i -> new DeviceResponse((long) i, "Device " + i, "Brand " + (i % 100),
+                        STATES[i % STATES.length], createdAt, 0L))
+                .toList();
+        idsAndStates = devices.stream()
+                .map(device -> device.withFields(DeviceField.parse("id,state")))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] writeDevices(PayloadSize payloadSize) {
+        return writer.writeValueAsBytes(devices);
+    }
+
+    @Benchmark
+    public byte[] writeIdsAndStates(PayloadSize payloadSize) {
+        return writer.writeValueAsBytes(idsAndStates);
+    }
+
+    /**
+     * Bytes of the page with all fields and with {@code fields=id,state}, measured outside the timed code.
+     * The counters are set rather than accumulated, so each iteration reports the size of one page.
+     */
+    @org.openjdk.jmh.annotations.State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long allFieldsBytes;
+        public long allFieldsGzippedBytes;
+        public long idsAndStatesBytes;
+        public long idsAndStatesGzippedBytes;
+
+        @Setup(Level.Iteration)
+        public void measure(DeviceSerializationBenchmark benchmark) {
+            byte[] allFields = benchmark.writer.writeValueAsBytes(benchmark.devices);
+            byte[] idsAndStates = benchmark.writer.writeValueAsBytes(benchmark.idsAndStates);
+            allFieldsBytes = allFields.length;
+            allFieldsGzippedBytes = gzip(allFields).length;
+            idsAndStatesBytes = idsAndStates.length;
+            idsAndStatesGzippedBytes = gzip(idsAndStates).length;
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
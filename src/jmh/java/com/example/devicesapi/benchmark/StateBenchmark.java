@@ -0,0 +1,48 @@
+package com.example.devicesapi.benchmark;
+
+import com.example.devicesapi.converter.StateConverter;
+import com.example.devicesapi.converter.StateReadingConverter;
+import com.example.devicesapi.model.State;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+
+/**
+ * Parsing of state values received in request bodies and query parameters and read from the database.
+ *
+ * {@code linearScan} is the former {@code State.fromValue}, a case-insensitive scan over {@code State.values()};
+ * compare its {@code gc.alloc.rate.norm} with {@code fromValue} to see the allocation saved per lookup.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class StateBenchmark {
+    private final StateConverter stateConverter = new StateConverter();
+    private final StateReadingConverter stateReadingConverter = new StateReadingConverter();
+
+    @Param({"available", "in-use", "INACTIVE"})
+    private String value;
+
+    @Benchmark
+    public State fromValue() {
+        return State.fromValue(value);
+    }
+
+    @Benchmark
+    public State linearScan() {
+        for (State state : State.values()) {
+            if (state.getValue().equalsIgnoreCase(value)) {
+                return state;
+            }
+        }
+        throw new IllegalArgumentException(value);
+    }
+
+    @Benchmark
+    public State convert() {
+        return stateConverter.convert(value);
+    }
+
+    @Benchmark
+    public State read() {
+        return stateReadingConverter.convert(value);
+    }
+}
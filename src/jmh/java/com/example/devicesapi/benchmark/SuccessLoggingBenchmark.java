@@ -0,0 +1,138 @@
+package com.example.devicesapi.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.example.devicesapi.logging.SamplingTurboFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.devicesapi.logging.LogSampling.SAMPLED;
+
+/**
+ * CPU cost of the success-path logging done for every {@code GET /devices} page, before and after sampling.
+ *
+ * {@code patternPageFetchedPair} is the baseline: the two unmarked INFO lines logged per page before sampling,
+ * written synchronously with Spring Boot's default console layout. {@code structuredPageFetched} is the current
+ * setup from {@code logback-spring.xml}: one {@link SamplingTurboFilter sampled} event, encoded as ECS JSON by
+ * {@link StructuredLogEncoder} behind an {@link AsyncAppender}. The async queue does not discard here, so once it
+ * is full the request thread waits for the encoding thread and the time per operation includes the encoding of
+ * every kept event rather than only the enqueueing.
+ *
+ * Multiplied by a fixed request rate the time per operation gives the logging CPU time per second at that rate,
+ * e.g. 2 µs/op at 10k requests/s is 2% of a core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SuccessLoggingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class PatternLogging {
+        private LoggerContext context;
+        private Logger logger;
+
+        @Setup
+        public void setUp() {
+            context = new LoggerContext();
+            context.putProperty("PID", Long.toString(ProcessHandle.current().pid()));
+
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setContext(context);
+            encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %property{PID} --- [%15.15t] "
+                    + "%-40.40logger{39} : %m%n");
+            encoder.setCharset(StandardCharsets.UTF_8);
+            encoder.start();
+
+            logger = context.getLogger(SuccessLoggingBenchmark.class);
+            logger.addAppender(nullAppender(context, encoder));
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.stop();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class StructuredLogging {
+        @Param({"1.0", "0.1", "0.01"})
+        private double sampleRate;
+
+        private LoggerContext context;
+        private Logger logger;
+
+        @Setup
+        public void setUp() {
+            context = new LoggerContext();
+            context.putObject(Environment.class.getName(), new StandardEnvironment());
+
+            SamplingTurboFilter samplingFilter = new SamplingTurboFilter();
+            samplingFilter.setRate(sampleRate);
+            samplingFilter.setContext(context);
+            samplingFilter.start();
+            context.addTurboFilter(samplingFilter);
+
+            StructuredLogEncoder encoder = new StructuredLogEncoder();
+            encoder.setContext(context);
+            encoder.setFormat("ecs");
+            encoder.setCharset(StandardCharsets.UTF_8);
+            encoder.start();
+
+            AsyncAppender asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(context);
+            asyncAppender.setQueueSize(8192);
+            asyncAppender.setDiscardingThreshold(0);
+            asyncAppender.addAppender(nullAppender(context, encoder));
+            asyncAppender.start();
+
+            logger = context.getLogger(SuccessLoggingBenchmark.class);
+            logger.addAppender(asyncAppender);
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.stop();
+        }
+    }
+
+    private static OutputStreamAppender<ILoggingEvent> nullAppender(LoggerContext context,
+                                                                    Encoder<ILoggingEvent> encoder) {
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    @Benchmark
+    public void patternPageFetchedPair(PatternLogging logging) {
+        logging.logger.info("Fetching devices with brand: {} and state: {} after id: {}",
+                "SmartHome", "available", 4_200L);
+        logging.logger.info("Found {} devices matching criteria", 100);
+    }
+
+    @Benchmark
+    public void structuredPageFetched(StructuredLogging logging) {
+        logging.logger.info(SAMPLED, "Found {} devices with brand: {} and state: {} after id: {}",
+                100, "SmartHome", "available", 4_200L);
+    }
+}
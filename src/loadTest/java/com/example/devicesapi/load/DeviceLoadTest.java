@@ -0,0 +1,190 @@
+package com.example.devicesapi.load;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a mixed workload against the application booted on the Testcontainers Postgres of the test profile
+ * and writes latency percentiles and throughput per endpoint to a JSON report.
+ *
+ * Every client sends its next request as soon as the previous one completes, so the number of requests
+ * in flight equals the configured concurrency.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase(
+        replace = AutoConfigureTestDatabase.Replace.NONE
+)
+@ActiveProfiles("test")
+public class DeviceLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceLoadTest.class);
+    private static final int BRANDS = 100;
+    private static final String[] STATES = {"available", "in-use", "inactive"};
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private HttpClient httpClient;
+    private long minId;
+    private long maxId;
+
+    @Test
+    public void mixedWorkload() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        logger.info("Starting load test with {}, virtual threads: {}", settings, virtualThreads);
+        seed(settings.devices());
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clients)
+                    .build();
+
+            run(clients, settings, settings.warmup());
+            Instant startedAt = Instant.now();
+            Map<Operation, LatencySamples> samples = run(clients, settings, settings.duration());
+
+            LoadTestReport report = report(settings, startedAt, samples);
+            Files.createDirectories(settings.report().toAbsolutePath().getParent());
+            jsonMapper.writerWithDefaultPrettyPrinter().writeValue(settings.report().toFile(), report);
+            logger.info("Load test report written to {}", settings.report().toAbsolutePath());
+
+            assertTrue(report.requests() > 0);
+            report.endpoints().forEach(endpoint -> assertTrue(endpoint.errors() * 100 <= endpoint.requests(),
+                    () -> "More than 1% of requests failed: " + endpoint));
+        }
+    }
+
+    private void seed(int devices) {
+        jdbcTemplate.update("""
+                INSERT INTO devices (name, brand, state)
+                SELECT 'Load Device ' || i, 'Load Brand ' || (i % ?),
+                       (ARRAY['available', 'in-use', 'inactive']::device_state[])[i % 3 + 1]
+                FROM generate_series(1, ?) AS i
+                ON CONFLICT (name, brand) DO NOTHING""", BRANDS, devices);
+        jdbcTemplate.execute("ANALYZE devices");
+        minId = jdbcTemplate.queryForObject("SELECT min(id) FROM devices", Long.class);
+        maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM devices", Long.class);
+    }
+
+    private Map<Operation, LatencySamples> run(ExecutorService clients, LoadTestSettings settings,
+                                               Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Map<Operation, LatencySamples>>> results = new ArrayList<>();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            results.add(clients.submit(() -> client(settings.workload(), deadline)));
+        }
+
+        Map<Operation, LatencySamples> merged = samplesPerOperation();
+        for (Future<Map<Operation, LatencySamples>> result : results) {
+            result.get().forEach((operation, samples) -> merged.get(operation).addAll(samples));
+        }
+        return merged;
+    }
+
+    private Map<Operation, LatencySamples> client(Workload workload, long deadline) throws InterruptedException {
+        Map<Operation, LatencySamples> samples = samplesPerOperation();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Operation operation = workload.next(random);
+            HttpRequest request = request(operation, random);
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                success = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 300;
+            } catch (IOException e) {
+                success = false;
+            }
+            samples.get(operation).record(System.nanoTime() - start, success);
+        }
+        return samples;
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        return switch (operation) {
+            case GET_BY_ID -> HttpRequest.newBuilder(uri("/devices/" + randomId(random))).GET().build();
+            case LIST_FILTERED -> HttpRequest.newBuilder(uri(random.nextBoolean()
+                    ? "/devices?limit=100&brand=" + URLEncoder.encode(
+                            "Load Brand " + random.nextInt(BRANDS), StandardCharsets.UTF_8)
+                    : "/devices?limit=100&state=" + STATES[random.nextInt(STATES.length)])).GET().build();
+            case CREATE -> HttpRequest.newBuilder(uri("/devices"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"name":"Load %s","brand":"Load Brand %d"}""".formatted(
+                            UUID.randomUUID(), random.nextInt(BRANDS))))
+                    .build();
+            case SEARCH -> HttpRequest.newBuilder(uri("/devices?limit=100&q=" + URLEncoder.encode(
+                    "device " + random.nextInt(10_000), StandardCharsets.UTF_8))).GET().build();
+            case PATCH_STATE -> HttpRequest.newBuilder(uri("/devices/" + randomId(random)))
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("""
+                            {"state":"%s"}""".formatted(STATES[random.nextInt(STATES.length)])))
+                    .build();
+        };
+    }
+
+    private LoadTestReport report(LoadTestSettings settings, Instant startedAt,
+                                  Map<Operation, LatencySamples> samples) {
+        double seconds = settings.duration().toNanos() / 1e9;
+        List<LoadTestReport.Endpoint> endpoints = samples.entrySet().stream()
+                .map(entry -> LoadTestReport.Endpoint.of(entry.getKey().endpoint(), entry.getValue(), seconds))
+                .toList();
+        long requests = endpoints.stream().mapToLong(LoadTestReport.Endpoint::requests).sum();
+        return new LoadTestReport(startedAt, settings.workload(), virtualThreads, settings.devices(),
+                settings.concurrency(), settings.duration().toSeconds(), requests, requests / seconds, endpoints);
+    }
+
+    private long randomId(ThreadLocalRandom random) {
+        return random.nextLong(minId, maxId + 1);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static Map<Operation, LatencySamples> samplesPerOperation() {
+        Map<Operation, LatencySamples> samples = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            samples.put(operation, new LatencySamples());
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.devicesapi.load;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of latencies in nanoseconds, owned by a single client until the run is over.
+ */
+final class LatencySamples {
+    private long[] values = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long nanos, boolean success) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    void addAll(LatencySamples other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * @return latencies sorted in ascending order
+     */
+    long[] sorted() {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
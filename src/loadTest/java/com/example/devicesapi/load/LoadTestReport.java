@@ -0,0 +1,47 @@
+package com.example.devicesapi.load;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Machine-readable outcome of a load test run, meant to be diffed between releases.
+ */
+record LoadTestReport(Instant startedAt,
+                      Workload workload,
+                      boolean virtualThreads,
+                      int devices,
+                      int concurrency,
+                      long durationSeconds,
+                      long requests,
+                      double throughputPerSecond,
+                      List<Endpoint> endpoints) {
+
+    record Endpoint(String endpoint,
+                    long requests,
+                    long errors,
+                    double throughputPerSecond,
+                    double p50Millis,
+                    double p99Millis,
+                    double p999Millis,
+                    double maxMillis) {
+
+        static Endpoint of(String endpoint, LatencySamples samples, double seconds) {
+            long[] sorted = samples.sorted();
+            return new Endpoint(endpoint, sorted.length, samples.errors(), sorted.length / seconds,
+                    percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    sorted.length == 0 ? 0 : millis(sorted[sorted.length - 1]));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return millis(sorted[Math.max(rank, 1) - 1]);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.devicesapi.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test parameters, passed by the {@code loadTest} Gradle task as system properties.
+ *
+ * @param workload    requests sent by the clients
+ * @param devices     number of devices seeded before the run
+ * @param concurrency number of clients sending requests back to back
+ * @param warmup      time spent sending requests before measuring
+ * @param duration    time during which requests are measured
+ * @param report      file the JSON report is written to
+ */
+record LoadTestSettings(Workload workload, int devices, int concurrency, Duration warmup, Duration duration, Path report) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Workload.fromValue(System.getProperty("loadTest.workload", "mixed")),
+                Integer.getInteger("loadTest.devices", 10_000),
+                Integer.getInteger("loadTest.concurrency", 32),
+                Duration.ofSeconds(Long.getLong("loadTest.warmupSeconds", 10)),
+                Duration.ofSeconds(Long.getLong("loadTest.durationSeconds", 30)),
+                Path.of(System.getProperty("loadTest.report", "build/reports/load-test/results.json")));
+    }
+}
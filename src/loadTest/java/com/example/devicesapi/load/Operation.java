@@ -0,0 +1,38 @@
+package com.example.devicesapi.load;
+
+/**
+ * Requests of the load test and their share of the mixed workload, in percent.
+ */
+enum Operation {
+    GET_BY_ID("GET /devices/{id}", 60),
+    LIST_FILTERED("GET /devices?brand|state", 20),
+    CREATE("POST /devices", 10),
+    PATCH_STATE("PATCH /devices/{id}", 10),
+    SEARCH("GET /devices?q", 0);
+
+    private final String endpoint;
+    private final int weight;
+
+    Operation(String endpoint, int weight) {
+        this.endpoint = endpoint;
+        this.weight = weight;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @param roll uniformly distributed value in [0, 100)
+     */
+    static Operation pick(int roll) {
+        int bound = 0;
+        for (Operation operation : values()) {
+            bound += operation.weight;
+            if (roll < bound) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Roll out of range: " + roll);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.devicesapi.load;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Which requests the clients send.
+ */
+enum Workload {
+    /**
+     * Reads by id, filtered lists, creates and state PATCHes, weighted as in {@link Operation}.
+     */
+    MIXED {
+        @Override
+        Operation next(ThreadLocalRandom random) {
+            return Operation.pick(random.nextInt(100));
+        }
+    },
+    /**
+     * Only {@code GET /devices/{id}}, to compare request handling setups on the hottest endpoint.
+     */
+    GET_BY_ID {
+        @Override
+        Operation next(ThreadLocalRandom random) {
+            return Operation.GET_BY_ID;
+        }
+    },
+    /**
+     * Only {@code GET /devices?q=}, searching device names by a fragment, to measure search on large tables.
+     */
+    SEARCH {
+        @Override
+        Operation next(ThreadLocalRandom random) {
+            return Operation.SEARCH;
+        }
+    };
+
+    abstract Operation next(ThreadLocalRandom random);
+
+    static Workload fromValue(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.devicesapi.cache;
+
+import com.example.devicesapi.model.DeviceResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded in-memory cache of mapped devices by id, evicted by size and time since the last write.
+ *
+ * Missing devices are loaded by a {@link VirtualThreadLoader}, outside the map's locks. A write or eviction
+ * that happens while a device is being loaded replaces or drops the pending load, so the loaded value can
+ * never overwrite it. Devices changed by other instances are evicted on their {@link DeviceChange} events.
+ * Hit, miss and eviction counts are published as the {@code cache.*} meters tagged {@code cache=devices}.
+ */
+@Component
+public class DeviceCache implements MeterBinder, DisposableBean {
+    private static final String NAME = "devices";
+
+    private final AsyncCache<Long, DeviceResponse> cache;
+    private final VirtualThreadLoader loads = new VirtualThreadLoader();
+
+    public DeviceCache(@Value("${devices.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${devices.cache.time-to-live:5m}") Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * @return the cached device, or the one returned by {@code loader} which is then cached;
+     * {@code null} when the loader finds nothing, in which case nothing is cached
+     */
+    public DeviceResponse get(long id, LongFunction<DeviceResponse> loader) {
+        return loads.get(cache, id, loader::apply);
+    }
+
+    /**
+     * Cache the device unless a newer version of it is already cached by a concurrent write.
+     */
+    public void put(DeviceResponse device) {
+        cache.asMap().compute(device.id(), (id, cached) -> newer(cached, device));
+    }
+
+    public void evict(long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void evictAll(Collection<Long> ids) {
+        cache.synchronous().invalidateAll(ids);
+    }
+
+    public void clear() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @EventListener
+    public void onDeviceChange(DeviceChange change) {
+        evict(change.id());
+    }
+
+    @EventListener(DeviceChangesMissed.class)
+    public void onDeviceChangesMissed() {
+        clear();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics<>(cache.synchronous(), NAME, Tags.empty()).bindTo(registry);
+    }
+
+    @Override
+    public void destroy() {
+        loads.close();
+    }
+
+    /**
+     * @return the cached device if it is a newer version than the written one, otherwise the written device;
+     * a load still in progress is always replaced as it cannot be newer than a committed write
+     */
+    private static CompletableFuture<DeviceResponse> newer(CompletableFuture<DeviceResponse> cached,
+                                                           DeviceResponse written) {
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            DeviceResponse current = cached.join();
+            if (current != null && current.version() != null && written.version() != null
+                    && current.version() > written.version()) {
+                return cached;
+            }
+        }
+        return CompletableFuture.completedFuture(written);
+    }
+}
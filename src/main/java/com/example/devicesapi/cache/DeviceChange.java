@@ -0,0 +1,23 @@
+package com.example.devicesapi.cache;
+
+import com.example.devicesapi.model.State;
+
+/**
+ * A committed insert, update or delete of a device, as notified by the {@code devices} trigger.
+ * Published as an application event by {@link DeviceChangeListener} on every instance, whichever instance
+ * made the change.
+ *
+ * @param id            id of the device
+ * @param before        brand and state before the change, {@code null} for an insert
+ * @param after         brand and state after the change, {@code null} for a delete
+ * @param transactionId id of the transaction that made the change, {@code null} if unknown
+ */
+public record DeviceChange(long id, Snapshot before, Snapshot after, Long transactionId) {
+
+    public DeviceChange(long id, Snapshot before, Snapshot after) {
+        this(id, before, after, null);
+    }
+
+    public record Snapshot(String brand, State state) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.devicesapi.cache;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Publishes the device changes committed by any instance as {@link DeviceChange} application events, which keep
+ * the local {@link DeviceCache} and {@link DeviceCounters} consistent with writes made by other instances.
+ *
+ * A trigger on {@code devices} sends a {@code NOTIFY device_changed} with the id, brand and state of every
+ * inserted, updated or deleted row once the writing transaction commits. This listener holds its own connection
+ * outside the pool and {@code LISTEN}s on that channel. Notifications sent while the connection is down are lost,
+ * so a {@link DeviceChangesMissed} event is published every time the listener (re)connects.
+ */
+@Component
+public class DeviceChangeListener implements SmartLifecycle {
+    private static final String CHANNEL = "device_changed";
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceChangeListener.class);
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonMapper jsonMapper;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private volatile boolean running;
+    private Thread thread;
+
+    public DeviceChangeListener(DataSourceProperties dataSourceProperties,
+                                ApplicationEventPublisher eventPublisher,
+                                JsonMapper jsonMapper,
+                                @Value("${devices.cache.invalidation.poll-timeout:500ms}") Duration pollTimeout,
+                                @Value("${devices.cache.invalidation.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.jsonMapper = jsonMapper;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("device-change-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(pollTimeout.multipliedBy(2).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                eventPublisher.publishEvent(new DeviceChangesMissed());
+                logger.info("Listening for device changes on channel: {}", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            publish(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    logger.warn("Lost device change listener connection, reconnecting in {}: {}",
+                            reconnectDelay, e.getMessage());
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void publish(String payload) {
+        DeviceChange change;
+        try {
+            change = jsonMapper.readValue(payload, DeviceChange.class);
+        } catch (JacksonException e) {
+            logger.error("Ignoring invalid device change notification: {}", payload);
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(change);
+        } catch (RuntimeException e) {
+            logger.error("Failed to handle change of device with id: {}", change.id(), e);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.devicesapi.cache;
+
+/**
+ * Published by {@link DeviceChangeListener} every time it (re)connects: changes committed while it was not
+ * listening have not been published as {@link DeviceChange} events, so state derived from them must be rebuilt.
+ */
+public record DeviceChangesMissed() {
+}
@@ -0,0 +1,176 @@
+package com.example.devicesapi.cache;
+
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.State;
+import com.example.devicesapi.repository.DeviceCountSnapshot;
+import com.example.devicesapi.repository.DeviceRepository;
+import com.example.devicesapi.repository.TransactionSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory number of devices per brand and state, so device stats are served without querying the database.
+ * Only active when {@code devices.stats.counters.enabled} is set.
+ *
+ * The counts are loaded from the database whenever {@link DeviceChangeListener} (re)connects and then adjusted
+ * by every {@link DeviceChange}, which covers committed changes made by any instance. Changes notified while the
+ * counts are being loaded are held back and applied to the loaded counts afterwards. A change whose transaction is
+ * visible in the snapshot the counts were read at is already counted and is skipped, whenever it is notified, so a
+ * reload neither loses nor double counts a change. The counts are also replaced by a fresh count from the database
+ * every {@code devices.stats.counters.reconcile-interval}, which repairs changes notified without a transaction id.
+ */
+@Component
+public class DeviceCounters {
+    private static final Comparator<DeviceCount> ORDER = Comparator.comparing(DeviceCount::brand)
+            .thenComparing(DeviceCount::state);
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceCounters.class);
+    private final DeviceRepository deviceRepository;
+    private final boolean enabled;
+    // orders changes with reloads, so every change is applied to the counts that are served once the reload is done
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Counts counts;
+    private List<DeviceChange> heldBack;
+
+    public DeviceCounters(DeviceRepository deviceRepository,
+                          @Value("${devices.stats.counters.enabled:false}") boolean enabled) {
+        this.deviceRepository = deviceRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return one {@code DeviceCount} per brand and state that has at least one device, ordered by brand and state,
+     *         or empty until the counts have been loaded for the first time
+     */
+    public Optional<List<DeviceCount>> snapshot() {
+        Counts current = counts;
+        if (current == null) {
+            return Optional.empty();
+        }
+        List<DeviceCount> snapshot = new ArrayList<>();
+        current.devices().forEach((group, count) -> {
+            long devices = count.sum();
+            if (devices > 0) {
+                snapshot.add(new DeviceCount(group.brand(), group.state(), devices));
+            }
+        });
+        snapshot.sort(ORDER);
+        return Optional.of(snapshot);
+    }
+
+    @EventListener
+    public void onDeviceChange(DeviceChange change) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (heldBack != null) {
+                heldBack.add(change);
+            } else if (counts != null) {
+                counts.apply(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener(DeviceChangesMissed.class)
+    public void onDeviceChangesMissed() {
+        reconcile();
+    }
+
+    /**
+     * Replace the counts by a fresh count from the database.
+     */
+    @Scheduled(fixedDelayString = "${devices.stats.counters.reconcile-interval:1m}",
+            initialDelayString = "${devices.stats.counters.reconcile-interval:1m}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            reload();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void reload() {
+        lock.lock();
+        try {
+            heldBack = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        Counts fresh = null;
+        try {
+            fresh = Counts.of(deviceRepository.countByBrandAndStateWithSnapshot());
+        } finally {
+            lock.lock();
+            try {
+                if (fresh != null) {
+                    counts = fresh;
+                }
+                if (counts != null) {
+                    heldBack.forEach(counts::apply);
+                }
+                heldBack = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+        logger.info("Reconciled device counters of {} brand and state groups", fresh.devices().size());
+    }
+
+    private record Counts(Map<Group, LongAdder> devices, TransactionSnapshot snapshot) {
+
+        static Counts of(DeviceCountSnapshot counted) {
+            Map<Group, LongAdder> devices = new ConcurrentHashMap<>();
+            for (DeviceCount count : counted.counts()) {
+                LongAdder adder = new LongAdder();
+                adder.add(count.count());
+                devices.put(new Group(count.brand(), count.state()), adder);
+            }
+            return new Counts(devices, counted.snapshot());
+        }
+
+        void apply(DeviceChange change) {
+            if (change.transactionId() != null && snapshot.isVisible(change.transactionId())) {
+                return;
+            }
+            if (change.before() != null) {
+                add(change.before(), -1);
+            }
+            if (change.after() != null) {
+                add(change.after(), 1);
+            }
+        }
+
+        private void add(DeviceChange.Snapshot device, long delta) {
+            devices.computeIfAbsent(new Group(device.brand(), device.state()), group -> new LongAdder()).add(delta);
+        }
+    }
+
+    private record Group(String brand, State state) {
+    }
+}
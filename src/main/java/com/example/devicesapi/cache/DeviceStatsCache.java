@@ -0,0 +1,43 @@
+package com.example.devicesapi.cache;
+
+import com.example.devicesapi.model.DeviceCount;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Holds the latest device counts for at most the configured time to live.
+ *
+ * Concurrent readers of an expired or missing result share a single load by a {@link VirtualThreadLoader},
+ * so the aggregate query runs at most once per interval however many dashboards are polling.
+ * A time to live of zero disables caching.
+ */
+@Component
+public class DeviceStatsCache implements DisposableBean {
+    private static final String KEY = "counts";
+
+    private final AsyncCache<String, List<DeviceCount>> cache;
+    private final VirtualThreadLoader loads = new VirtualThreadLoader();
+
+    public DeviceStatsCache(@Value("${devices.stats.time-to-live:5s}") Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(timeToLive)
+                .buildAsync();
+    }
+
+    public List<DeviceCount> get(Supplier<List<DeviceCount>> loader) {
+        return loads.get(cache, KEY, key -> loader.get());
+    }
+
+    @Override
+    public void destroy() {
+        loads.close();
+    }
+}
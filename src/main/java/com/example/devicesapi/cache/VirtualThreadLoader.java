@@ -0,0 +1,42 @@
+package com.example.devicesapi.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Loads missing values of an {@link AsyncCache}, each on its own virtual thread.
+ *
+ * A load is cached as a pending future and runs outside the map's locks, so a blocking JDBC call never holds
+ * a monitor that would pin the carrier of the calling virtual thread, and concurrent readers of the same key
+ * share a single load. Loads still running when the loader is closed are completed, new ones are rejected.
+ */
+final class VirtualThreadLoader implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @return the cached value, or the one returned by {@code loader} which is then cached unless it is
+     * {@code null}; an exception thrown by {@code loader} is rethrown as is
+     */
+    <K, V> V get(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        try {
+            return cache.get(key, (missing, ignored) ->
+                            CompletableFuture.supplyAsync(() -> loader.apply(missing), executor))
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
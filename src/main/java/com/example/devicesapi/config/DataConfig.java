@@ -1,9 +1,22 @@
 package com.example.devicesapi.config;
 
+import com.example.devicesapi.converter.PGobjectToStateConverter;
+import com.example.devicesapi.converter.StateReadingConverter;
+import com.example.devicesapi.converter.StateWritingConverter;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jdbc.core.convert.JdbcCustomConversions;
 import org.springframework.data.jdbc.repository.config.EnableJdbcAuditing;
 
+import java.util.List;
+
 @Configuration
 @EnableJdbcAuditing
 public class DataConfig {
+
+    @Bean
+    public JdbcCustomConversions jdbcCustomConversions() {
+        return new JdbcCustomConversions(List.of(
+                new StateWritingConverter(), new StateReadingConverter(), new PGobjectToStateConverter()));
+    }
 }
@@ -1,10 +1,15 @@
 package com.example.devicesapi.controller;
 
+import com.example.devicesapi.model.BatchCreateResult;
+import com.example.devicesapi.model.BulkStateChangeRequest;
 import com.example.devicesapi.model.CreateDeviceRequest;
+import com.example.devicesapi.model.DeviceChangeEvent;
+import com.example.devicesapi.model.DeviceCount;
 import com.example.devicesapi.model.DeviceResponse;
 import com.example.devicesapi.model.ErrorResponse;
 import com.example.devicesapi.model.PartialUpdateDeviceRequest;
 import com.example.devicesapi.model.State;
+import com.example.devicesapi.model.StateChangeResult;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -12,6 +17,8 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,8 +27,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -43,21 +53,59 @@ public interface DeviceApi {
     @PostMapping
     ResponseEntity<DeviceResponse> createDevice(@RequestBody @Valid CreateDeviceRequest request);
 
-    @Operation(summary = "Get device by id", responses = {
-            @ApiResponse(responseCode = "200", description = "Successfully found a device with provided id."),
-            @ApiResponse(responseCode = "404", description = "Device was not found, provided id is invalid.")
-    })
+    @Operation(
+            summary = "Create devices in bulk",
+            description = "Creates up to 10000 devices at once and returns the outcome of every entry in request order. "
+                    + "Entries whose name and brand already exist are reported as `duplicate` instead of failing the batch.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch has been processed",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(
+                                    schema = @Schema(implementation = BatchCreateResult.class)))),
+                    @ApiResponse(responseCode = "400", description = "Batch is empty or too large.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            }
+    )
+    @PostMapping("/batch")
+    ResponseEntity<List<BatchCreateResult>> createDevices(@RequestBody List<CreateDeviceRequest> requests);
+
+    @Operation(summary = "Get device by id",
+            description = "Returns the device with its version as `ETag`. When `If-None-Match` carries the current "
+                    + "`ETag` the device has not changed and 304 is returned without a body. With `fields` the "
+                    + "`ETag` also names the selected fields, e.g. `\"3;id+state\"`.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully found a device with provided id."),
+                    @ApiResponse(responseCode = "304", description = "Device has not changed since the provided ETag."),
+                    @ApiResponse(responseCode = "400", description = "Unknown field requested."),
+                    @ApiResponse(responseCode = "404", description = "Device was not found, provided id is invalid.")
+            })
     @GetMapping("/{id}")
-    ResponseEntity<DeviceResponse> getById(@PathVariable("id") long id);
+    ResponseEntity<DeviceResponse> getById(
+            @PathVariable("id") long id,
+            @Parameter(description = "Comma-separated properties to return, all when absent; id is always returned",
+                    example = "id,state")
+            @RequestParam(value = "fields", required = false) String fields,
+            @Parameter(description = "ETag of the device already held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
     @Operation(summary = "Get list devices",
-            description = "Returns all devices filtered by provided optional query parameters `brand` and/or `state`.",
+            description = "Returns a page of devices ordered by id and filtered by provided optional query parameters "
+                    + "`brand` and/or `state`. With `q` only devices whose name or brand contains it are returned, "
+                    + "ordered by relevance and then by id. When more devices are available the response carries "
+                    + "a `Link` header with `rel=\"next\"` pointing to the next page. Besides JSON the page can be "
+                    + "requested as CBOR or Smile with the `Accept` header; large pages are gzipped for clients "
+                    + "sending `Accept-Encoding: gzip`.",
             responses = {
                     @ApiResponse(responseCode = "200",
                             description = "List of devices (possible empty)",
-                            content = @Content(mediaType = "application/json", array = @ArraySchema(
-                                    schema = @Schema(implementation = DeviceResponse.class)
-                            ))),
+                            content = {
+                                    @Content(mediaType = "application/json", array = @ArraySchema(
+                                            schema = @Schema(implementation = DeviceResponse.class))),
+                                    @Content(mediaType = "application/cbor", array = @ArraySchema(
+                                            schema = @Schema(implementation = DeviceResponse.class))),
+                                    @Content(mediaType = "application/x-jackson-smile", array = @ArraySchema(
+                                            schema = @Schema(implementation = DeviceResponse.class)))
+                            }),
                     @ApiResponse(responseCode = "400", description = "Invalid request parameters")
             })
     @GetMapping
@@ -65,7 +113,59 @@ public interface DeviceApi {
             @Parameter(description = "Filter by device brand", example = "Apple")
             @RequestParam(value = "brand", required = false) String brand,
             @Parameter(description = "Filter be device state")
-            @RequestParam(value = "state", required = false) State state);
+            @RequestParam(value = "state", required = false) State state,
+            @Parameter(description = "Only return devices whose name or brand contains this text, ignoring case, "
+                    + "most relevant first", example = "phone")
+            @RequestParam(value = "q", required = false) String q,
+            @Parameter(description = "Opaque cursor taken from the `next` link of the previous page")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "Maximum number of devices in the page (default 100, max 1000)", example = "100")
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @Parameter(description = "Comma-separated properties to return, all when absent; id is always returned. "
+                    + "Only the selected columns are read from the database.", example = "id,state")
+            @RequestParam(value = "fields", required = false) String fields);
+
+    @Operation(summary = "Count devices by brand and state",
+            description = "Returns the number of devices per brand and state. Counts are computed on the server and "
+                    + "may be up to a few seconds old, so dashboards can refresh often without loading the database.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Counts per brand and state (possible empty)",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(
+                                    schema = @Schema(implementation = DeviceCount.class))))
+            })
+    @GetMapping("/stats")
+    ResponseEntity<List<DeviceCount>> getDeviceStats();
+
+    @Operation(summary = "Stream device changes",
+            description = "Server-Sent Events stream with a `created`, `updated` or `deleted` event for every change "
+                    + "of a device matching the optional `brand` and `state` filters before or after the change, "
+                    + "made by any instance. Reconnecting with `Last-Event-ID` replays the recent events missed "
+                    + "in between; when they are no longer available a `resync` event is sent first and the client "
+                    + "should reload the devices it is interested in.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stream of device changes",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                    schema = @Schema(implementation = DeviceChangeEvent.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request parameters")
+            })
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<SseEmitter> streamChanges(
+            @Parameter(description = "Only stream changes of devices of this brand", example = "Apple")
+            @RequestParam(value = "brand", required = false) String brand,
+            @Parameter(description = "Only stream changes of devices entering or leaving this state")
+            @RequestParam(value = "state", required = false) State state,
+            @Parameter(description = "Id of the last event received before reconnecting")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId);
+
+    @Operation(summary = "Export all devices",
+            description = "Streams every device ordered by id as newline-delimited JSON, one device per line.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stream of devices (possible empty)",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = DeviceResponse.class)))
+            })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportDevices();
 
     @Operation(summary = "Delete device by id", responses = {
             @ApiResponse(responseCode = "200", description = "Device has been deleted successfully.",
@@ -74,12 +174,18 @@ public interface DeviceApi {
             @ApiResponse(responseCode = "404", description = "Device was not found, provided id is invalid.",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "Device has changed since the provided ETag.",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "423", description = "Device cannot be deleted in its current state.",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class)))
     })
     @DeleteMapping("/{id}")
-    ResponseEntity<DeviceResponse> deleteDevice(@PathVariable("id") long id);
+    ResponseEntity<DeviceResponse> deleteDevice(
+            @PathVariable("id") long id,
+            @Parameter(description = "Only delete when the device still has one of these ETags")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
 
     @Operation(summary = "Update device by id", responses = {
             @ApiResponse(responseCode = "200", description = "Device has been updated successfully.",
@@ -91,14 +197,88 @@ public interface DeviceApi {
             @ApiResponse(responseCode = "404", description = "Device was not found, provided id is invalid.",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "Device has changed since the provided ETag.",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "423", description = "Device cannot be updated in its current state.",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PutMapping("/{id}")
-    ResponseEntity<DeviceResponse> updateDevice(@PathVariable("id") long id, @RequestBody @Valid CreateDeviceRequest request);
+    ResponseEntity<DeviceResponse> updateDevice(
+            @PathVariable("id") long id,
+            @Parameter(description = "Only update when the device still has one of these ETags")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody @Valid CreateDeviceRequest request);
 
 
+    @Operation(summary = "Change state of many devices",
+            description = "Moves all given devices to the target state in one statement and returns the outcome per id.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "State change has been processed.",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(
+                                    schema = @Schema(implementation = StateChangeResult.class)))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @PatchMapping("/state")
+    ResponseEntity<List<StateChangeResult>> changeStates(@RequestBody @Valid BulkStateChangeRequest request);
+
+    @Operation(summary = "Lease device by id",
+            description = "Moves the device from `available` to `in-use` in one atomic step, so of concurrent "
+                    + "leases of the same device exactly one succeeds. A device not released within the configured "
+                    + "lease duration is moved back to `available` automatically.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Device has been leased.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = DeviceResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Device was not found, provided id is invalid.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "Device is not available.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @PostMapping("/{id}/lease")
+    ResponseEntity<DeviceResponse> leaseDevice(@PathVariable("id") long id);
+
+    @Operation(summary = "Release device by id",
+            description = "Moves a leased device from `in-use` back to `available` in one atomic step.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Device has been released.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = DeviceResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Device was not found, provided id is invalid.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "Device is not in use.",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @PostMapping("/{id}/release")
+    ResponseEntity<DeviceResponse> releaseDevice(@PathVariable("id") long id);
+
+    @Operation(summary = "Lease any available devices",
+            description = "Moves up to `count` available devices, optionally of one brand, to `in-use` and returns "
+                    + "them ordered by id. Devices being leased by concurrent requests are skipped rather than "
+                    + "waited for, so fewer devices (possibly none) are returned when not enough are available. "
+                    + "Like a single lease, the leases expire after the configured lease duration.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Leased devices (possible empty)",
+                            content = @Content(mediaType = "application/json", array = @ArraySchema(
+                                    schema = @Schema(implementation = DeviceResponse.class)))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request parameters",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @PostMapping("/lease")
+    ResponseEntity<List<DeviceResponse>> leaseDevices(
+            @Parameter(description = "Only lease devices of this brand", example = "Apple")
+            @RequestParam(value = "brand", required = false) String brand,
+            @Parameter(description = "Maximum number of devices to lease (default 1, max 1000)", example = "5")
+            @RequestParam(value = "count", defaultValue = "1") int count);
+
     @Operation(summary = "Partially update device by id", responses = {
             @ApiResponse(responseCode = "200", description = "Device has been updated successfully.",
                     content = @Content(mediaType = "application/json",
@@ -109,10 +289,17 @@ public interface DeviceApi {
             @ApiResponse(responseCode = "404", description = "Device was not found, provided id is invalid.",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "Device has changed since the provided ETag.",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "423", description = "Device cannot be updated in its current state.",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PatchMapping("/{id}")
-    ResponseEntity<DeviceResponse> partialUpdate(@PathVariable("id") long id, @RequestBody PartialUpdateDeviceRequest request);
+    ResponseEntity<DeviceResponse> partialUpdate(
+            @PathVariable("id") long id,
+            @Parameter(description = "Only update when the device still has one of these ETags")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody PartialUpdateDeviceRequest request);
 }
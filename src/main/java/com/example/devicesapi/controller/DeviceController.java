@@ -1,24 +1,45 @@
 package com.example.devicesapi.controller;
 
+import com.example.devicesapi.feed.DeviceChangeFeed;
+import com.example.devicesapi.model.BatchCreateResult;
+import com.example.devicesapi.model.BulkStateChangeRequest;
 import com.example.devicesapi.model.CreateDeviceRequest;
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.DeviceField;
+import com.example.devicesapi.model.DevicePage;
 import com.example.devicesapi.model.DeviceResponse;
 import com.example.devicesapi.model.PartialUpdateDeviceRequest;
 import com.example.devicesapi.model.State;
+import com.example.devicesapi.model.StateChangeResult;
 import com.example.devicesapi.service.DeviceService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/devices")
 public class DeviceController implements DeviceApi {
     private final DeviceService deviceService;
+    private final DeviceChangeFeed deviceChangeFeed;
+    private final ObjectWriter deviceWriter;
 
-    public DeviceController(DeviceService deviceService) {
+    public DeviceController(DeviceService deviceService, DeviceChangeFeed deviceChangeFeed, JsonMapper jsonMapper) {
         this.deviceService = deviceService;
+        this.deviceChangeFeed = deviceChangeFeed;
+        this.deviceWriter = jsonMapper.writerFor(DeviceResponse.class);
     }
 
     @Override
@@ -28,28 +49,101 @@ public class DeviceController implements DeviceApi {
     }
 
     @Override
-    public ResponseEntity<DeviceResponse> getById(long id) {
-        return ResponseEntity.ok(deviceService.getDeviceById(id));
+    public ResponseEntity<List<BatchCreateResult>> createDevices(List<CreateDeviceRequest> requests) {
+        return ResponseEntity.ok(deviceService.createDevices(requests));
     }
 
     @Override
-    public ResponseEntity<List<DeviceResponse>> getDevices(String brand, State state) {
-        List<DeviceResponse> devices = deviceService.getDevices(brand, state);
-        return ResponseEntity.ok(devices);
+    public ResponseEntity<DeviceResponse> getById(long id, String fields, String ifNoneMatch) {
+        Set<DeviceField> selected = DeviceField.parse(fields);
+        DeviceResponse device = deviceService.getDeviceById(id);
+        String eTag = ETags.of(device.version(), selected);
+        if (ETags.matchesAny(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(device.withFields(selected));
     }
 
     @Override
-    public ResponseEntity<DeviceResponse> deleteDevice(long id) {
-        return ResponseEntity.ok(deviceService.deleteDevice(id));
+    public ResponseEntity<List<DeviceResponse>> getDevices(String brand, State state, String q, String after,
+                                                           Integer limit, String fields) {
+        Set<DeviceField> selected = DeviceField.parse(fields);
+        DevicePage page = q != null
+                ? deviceService.searchDevices(q, brand, state, after, limit, selected)
+                : deviceService.getDevices(brand, state, after, limit, selected);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.devices());
     }
 
     @Override
-    public ResponseEntity<DeviceResponse> updateDevice(long id, CreateDeviceRequest request) {
-        return ResponseEntity.ok(deviceService.updateDevice(id, request));
+    public ResponseEntity<List<DeviceCount>> getDeviceStats() {
+        return ResponseEntity.ok(deviceService.getDeviceStats());
     }
 
     @Override
-    public ResponseEntity<DeviceResponse> partialUpdate(long id, PartialUpdateDeviceRequest request) {
-        return ResponseEntity.ok(deviceService.partialUpdateDevice(id, request));
+    public ResponseEntity<SseEmitter> streamChanges(String brand, State state, String lastEventId) {
+        SseEmitter emitter = new SseEmitter();
+        deviceChangeFeed.subscribe(emitter, brand, state, lastEventId);
+        return ResponseEntity.ok(emitter);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportDevices() {
+        StreamingResponseBody body = outputStream -> deviceService.exportDevices(device -> {
+            try {
+                outputStream.write(deviceWriter.writeValueAsBytes(device));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Override
+    public ResponseEntity<DeviceResponse> deleteDevice(long id, String ifMatch) {
+        return ResponseEntity.ok(deviceService.deleteDevice(id, ETags.expectedVersions(ifMatch)));
+    }
+
+    @Override
+    public ResponseEntity<DeviceResponse> updateDevice(long id, String ifMatch, CreateDeviceRequest request) {
+        DeviceResponse device = deviceService.updateDevice(id, request, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(device.version())).body(device);
+    }
+
+    @Override
+    public ResponseEntity<DeviceResponse> partialUpdate(long id, String ifMatch, PartialUpdateDeviceRequest request) {
+        DeviceResponse device = deviceService.partialUpdateDevice(id, request, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(device.version())).body(device);
+    }
+
+    @Override
+    public ResponseEntity<DeviceResponse> leaseDevice(long id) {
+        DeviceResponse device = deviceService.leaseDevice(id);
+        return ResponseEntity.ok().eTag(ETags.of(device.version())).body(device);
+    }
+
+    @Override
+    public ResponseEntity<DeviceResponse> releaseDevice(long id) {
+        DeviceResponse device = deviceService.releaseDevice(id);
+        return ResponseEntity.ok().eTag(ETags.of(device.version())).body(device);
+    }
+
+    @Override
+    public ResponseEntity<List<DeviceResponse>> leaseDevices(String brand, int count) {
+        return ResponseEntity.ok(deviceService.leaseDevices(brand, count));
+    }
+
+    @Override
+    public ResponseEntity<List<StateChangeResult>> changeStates(BulkStateChangeRequest request) {
+        return ResponseEntity.ok(deviceService.changeStates(request));
     }
 }
@@ -0,0 +1,90 @@
+package com.example.devicesapi.controller;
+
+import com.example.devicesapi.exception.PreconditionFailedException;
+import com.example.devicesapi.model.DeviceField;
+
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Conversion between device versions and the strong entity tags used in
+ * {@code ETag}, {@code If-Match} and {@code If-None-Match} headers.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Tag of a representation holding only the selected fields, e.g. {@code "3;id+state"}, so it never validates
+     * a cached representation with other fields. Fields are listed in declaration order whatever order they were
+     * requested in.
+     *
+     * @param fields the selected fields, or {@code null} for the full device tagged {@link #of(Long) by version}
+     */
+    static String of(Long version, Set<DeviceField> fields) {
+        if (fields == null) {
+            return of(version);
+        }
+        StringJoiner tag = new StringJoiner("+", "\"" + version + ";", "\"");
+        EnumSet.copyOf(fields).forEach(field -> tag.add(field.getProperty()));
+        return tag.toString();
+    }
+
+    /**
+     * @return whether any tag of the {@code If-None-Match} header matches the given tag (weak comparison)
+     */
+    static boolean matchesAny(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse an {@code If-Match} header, which matches when any of its tags matches the current device (strong
+     * comparison). Weak tags and tags that are not a device version can never match and are skipped.
+     *
+     * @return the versions listed by the {@code If-Match} header, or {@code null} when any version is accepted
+     * @throws PreconditionFailedException when no listed tag is a strong tag of a device version
+     */
+    static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.length() >= 3 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // the tag of another representation, such as a projection, never matches
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("If-Match does not match any device version: " + ifMatch);
+        }
+        return versions;
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -3,7 +3,9 @@ package com.example.devicesapi.controller;
 import com.example.devicesapi.exception.BlockedResourceException;
 import com.example.devicesapi.exception.DuplicatedDataException;
 import com.example.devicesapi.exception.InvalidInputPropertyException;
+import com.example.devicesapi.exception.PreconditionFailedException;
 import com.example.devicesapi.exception.ResourceNotFoundException;
+import com.example.devicesapi.exception.StateConflictException;
 import com.example.devicesapi.model.ErrorResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -44,9 +46,21 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("Resource not found", ex.getMessage()));
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException ex) {
+        return ResponseEntity.status(412)
+                .body(new ErrorResponse("Precondition failed", ex.getMessage()));
+    }
+
     @ExceptionHandler(BlockedResourceException.class)
     public ResponseEntity<ErrorResponse> handleBlockedResourceException(BlockedResourceException ex) {
         return ResponseEntity.status(423)
                 .body(new ErrorResponse("Resource is blocked", ex.getMessage()));
     }
+
+    @ExceptionHandler(StateConflictException.class)
+    public ResponseEntity<ErrorResponse> handleStateConflictException(StateConflictException ex) {
+        return ResponseEntity.status(409)
+                .body(new ErrorResponse("Conflicting device state", ex.getMessage()));
+    }
 }
@@ -0,0 +1,18 @@
+package com.example.devicesapi.converter;
+
+import com.example.devicesapi.model.State;
+import org.postgresql.util.PGobject;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Maps the {@code device_state} enum column to {@link State} when the driver returns it as a {@link PGobject}
+ * rather than a string.
+ */
+@ReadingConverter
+public class PGobjectToStateConverter implements Converter<PGobject, State> {
+    @Override
+    public State convert(PGobject source) {
+        return State.fromValue(source.getValue());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.devicesapi.converter;
+
+import com.example.devicesapi.model.State;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Maps the {@code devices.state} column to {@link State} when rows are read by Spring Data JDBC.
+ */
+@ReadingConverter
+public class StateReadingConverter implements Converter<String, State> {
+    @Override
+    public State convert(String source) {
+        return State.fromValue(source);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.devicesapi.converter;
+
+import com.example.devicesapi.model.State;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.jdbc.core.mapping.JdbcValue;
+
+import java.sql.JDBCType;
+
+/**
+ * Stores {@link State} as its value rather than its constant name, both for entities and {@code @Query} parameters.
+ * The value is bound untyped so PostgreSQL casts it to the {@code device_state} enum of the column it is compared
+ * with or written to; a {@code VARCHAR} parameter would not be.
+ */
+@WritingConverter
+public class StateWritingConverter implements Converter<State, JdbcValue> {
+    @Override
+    public JdbcValue convert(State source) {
+        return JdbcValue.of(source.getValue(), JDBCType.OTHER);
+    }
+}
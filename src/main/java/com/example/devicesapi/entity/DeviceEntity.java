@@ -1,8 +1,10 @@
 package com.example.devicesapi.entity;
 
+import com.example.devicesapi.model.State;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.time.Instant;
@@ -13,21 +15,23 @@ public class DeviceEntity {
     private long id;
     private String name;
     private String brand;
-    private String state;
+    private State state;
     @CreatedDate
     @ReadOnlyProperty
     private Instant createdAt;
+    @Version
+    private Long version;
 
     public DeviceEntity() {
     }
 
-    public DeviceEntity(String name, String brand, String state) {
+    public DeviceEntity(String name, String brand, State state) {
         this.name = name;
         this.brand = brand;
         this.state = state;
     }
 
-    public DeviceEntity(long id, String name, String brand, String state) {
+    public DeviceEntity(long id, String name, String brand, State state) {
         this.id = id;
         this.name = name;
         this.brand = brand;
@@ -35,7 +39,7 @@ public class DeviceEntity {
     }
 
     // Constructor including createdAt - using for testing purposes
-    public DeviceEntity(long id, String name, String brand, String state, Instant createdAt) {
+    public DeviceEntity(long id, String name, String brand, State state, Instant createdAt) {
         this.id = id;
         this.name = name;
         this.brand = brand;
@@ -43,6 +47,11 @@ public class DeviceEntity {
         this.createdAt = createdAt;
     }
 
+    public DeviceEntity(long id, String name, String brand, State state, Instant createdAt, Long version) {
+        this(id, name, brand, state, createdAt);
+        this.version = version;
+    }
+
     public long getId() {
         return id;
     }
@@ -55,11 +64,15 @@ public class DeviceEntity {
         return brand;
     }
 
-    public String getState() {
+    public State getState() {
         return state;
     }
 
     public Instant getCreatedAt() {
         return createdAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.devicesapi.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+/**
+ * A device change recorded in the {@code device_events} outbox. The device before and after the change is held
+ * as the JSON of its {@code devices} row.
+ */
+@Table("device_events")
+public class DeviceEventEntity {
+    @Id
+    private long id;
+    private long deviceId;
+    private String type;
+    private String oldDevice;
+    private String newDevice;
+    private Instant createdAt;
+
+    public DeviceEventEntity() {
+    }
+
+    public DeviceEventEntity(long id, long deviceId, String type, String oldDevice, String newDevice,
+                             Instant createdAt) {
+        this.id = id;
+        this.deviceId = deviceId;
+        this.type = type;
+        this.oldDevice = oldDevice;
+        this.newDevice = newDevice;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getDeviceId() {
+        return deviceId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getOldDevice() {
+        return oldDevice;
+    }
+
+    public String getNewDevice() {
+        return newDevice;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
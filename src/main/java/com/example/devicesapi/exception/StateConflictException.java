@@ -0,0 +1,7 @@
+package com.example.devicesapi.exception;
+
+public class StateConflictException extends RuntimeException {
+    public StateConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.devicesapi.feed;
+
+import com.example.devicesapi.cache.DeviceChange;
+import com.example.devicesapi.model.DeviceChangeEvent;
+import com.example.devicesapi.model.DeviceChangeType;
+import com.example.devicesapi.model.State;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes every {@link DeviceChange} to the subscribers of {@code GET /devices/changes} as Server-Sent Events.
+ *
+ * Subscriptions are asynchronous requests, so an idle subscriber holds no thread. Events are queued per subscriber
+ * and a task writing them out is only started while a subscriber has queued events, one at a time so each
+ * subscriber receives its events in order. A subscriber that falls more than {@code devices.changes.max-pending}
+ * events behind is disconnected and can resume with {@code Last-Event-ID}.
+ *
+ * The last {@code devices.changes.buffer-size} events are kept in a ring buffer and replayed to a subscriber that
+ * resumes with the id of the last event it received. Event ids are {@code <epoch>-<sequence>}, where the epoch is
+ * chosen at random when this instance starts. When the requested events are no longer available, because they have
+ * left the buffer, the id comes from another instance or an earlier run of this one, or more than
+ * {@code devices.changes.max-pending} of them would have to be replayed, the subscriber receives a {@code resync}
+ * event instead and has to reload the devices it is interested in.
+ */
+@Component
+public class DeviceChangeFeed implements MeterBinder {
+    private static final Entry HEARTBEAT = new Entry(0, null, null);
+    private static final Entry RESYNC = new Entry(0, null, null);
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceChangeFeed.class);
+    private final Entry[] buffer;
+    private final int maxPending;
+    private final Executor dispatcher;
+    // orders appends to the buffer with replays, so a resuming subscriber neither misses nor repeats an event
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final String epoch = Long.toUnsignedString(UUID.randomUUID().getMostSignificantBits(), 36);
+    private long newestId;
+
+    public DeviceChangeFeed(@Value("${devices.changes.buffer-size:10000}") int bufferSize,
+                            @Value("${devices.changes.max-pending:1000}") int maxPending) {
+        this(bufferSize, maxPending, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    DeviceChangeFeed(int bufferSize, int maxPending, Executor dispatcher) {
+        this.buffer = new Entry[bufferSize];
+        this.maxPending = maxPending;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Send the changes of devices matching the filters to the emitter, starting after {@code lastEventId} when given.
+     * A change matches when the device matches the filters before or after it, so subscribers also learn about
+     * devices that no longer match.
+     */
+    public void subscribe(SseEmitter emitter, String brand, State state, String lastEventId) {
+        boolean resuming = lastEventId != null && !lastEventId.isBlank();
+        Long after = resuming ? parseEventId(lastEventId) : null;
+        Subscription subscription = new Subscription(emitter, brand, state);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+        emitter.onTimeout(emitter::complete);
+
+        lock.lock();
+        try {
+            if (resuming) {
+                replay(subscription, after);
+            }
+            subscriptions.add(subscription);
+        } finally {
+            lock.unlock();
+        }
+        subscription.schedule();
+        logger.info("Subscribed to device changes with brand: {} and state: {} after event: {}",
+                brand, state, lastEventId);
+    }
+
+    @EventListener
+    public void onDeviceChange(DeviceChange change) {
+        List<Subscription> notified = new ArrayList<>();
+        lock.lock();
+        try {
+            Entry entry = new Entry(++newestId, change, toEvent(change));
+            buffer[(int) (entry.id() % buffer.length)] = entry;
+            for (Subscription subscription : subscriptions) {
+                if (subscription.matches(change) && subscription.offer(entry)) {
+                    notified.add(subscription);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        notified.forEach(Subscription::schedule);
+    }
+
+    /**
+     * Send a comment to every subscriber so proxies keep idle connections open and closed ones are detected.
+     */
+    @Scheduled(fixedDelayString = "${devices.changes.heartbeat-interval:30s}")
+    public void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.offer(HEARTBEAT)) {
+                subscription.schedule();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("devices.changes.subscribers", subscriptions, List::size)
+                .description("Open GET /devices/changes streams")
+                .register(registry);
+    }
+
+    /**
+     * Queue the buffered events after {@code after}, or a resync when they are unknown, no longer buffered
+     * or too many to queue.
+     */
+    private void replay(Subscription subscription, Long after) {
+        long oldestId = Math.max(1, newestId - buffer.length + 1);
+        if (after == null || after < oldestId - 1 || after > newestId) {
+            subscription.offer(RESYNC);
+            return;
+        }
+        List<Entry> missed = new ArrayList<>();
+        for (long id = after + 1; id <= newestId; id++) {
+            Entry entry = buffer[(int) (id % buffer.length)];
+            if (subscription.matches(entry.change())) {
+                if (missed.size() == maxPending) {
+                    subscription.offer(RESYNC);
+                    return;
+                }
+                missed.add(entry);
+            }
+        }
+        missed.forEach(subscription::offer);
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private static DeviceChangeEvent toEvent(DeviceChange change) {
+        if (change.before() == null) {
+            return new DeviceChangeEvent(change.id(), DeviceChangeType.CREATED,
+                    change.after().brand(), change.after().state());
+        }
+        if (change.after() == null) {
+            return new DeviceChangeEvent(change.id(), DeviceChangeType.DELETED,
+                    change.before().brand(), change.before().state());
+        }
+        return new DeviceChangeEvent(change.id(), DeviceChangeType.UPDATED,
+                change.after().brand(), change.after().state());
+    }
+
+    /**
+     * @return the sequence of an event id of this run of this instance, {@code null} for any other id
+     */
+    private Long parseEventId(String eventId) {
+        String id = eventId.strip();
+        int separator = id.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(id.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String eventId(Entry entry) {
+        return epoch + "-" + entry.id();
+    }
+
+    private record Entry(long id, DeviceChange change, DeviceChangeEvent event) {
+    }
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final String brand;
+        private final State state;
+        private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(SseEmitter emitter, String brand, State state) {
+            this.emitter = emitter;
+            this.brand = brand;
+            this.state = state;
+        }
+
+        private boolean matches(DeviceChange change) {
+            return matches(change.before()) || matches(change.after());
+        }
+
+        private boolean matches(DeviceChange.Snapshot device) {
+            return device != null
+                    && (brand == null || brand.equals(device.brand()))
+                    && (state == null || state == device.state());
+        }
+
+        /**
+         * @return whether the entry has been queued; the subscriber is disconnected instead when too far behind
+         */
+        private boolean offer(Entry entry) {
+            if (closed) {
+                return false;
+            }
+            if (pendingCount.incrementAndGet() > maxPending) {
+                logger.warn("Disconnecting device change subscriber more than {} events behind", maxPending);
+                close();
+                // completing waits for a send in progress, which must not hold up the caller
+                dispatcher.execute(emitter::complete);
+                return false;
+            }
+            pending.add(entry);
+            return true;
+        }
+
+        private void schedule() {
+            if (!closed && !pending.isEmpty() && sending.compareAndSet(false, true)) {
+                dispatcher.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                Entry entry;
+                while (!closed && (entry = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    emitter.send(toSseEvent(entry));
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Closing device change subscription: {}", e.getMessage());
+                close();
+            } finally {
+                sending.set(false);
+            }
+            // entries queued after the last poll but before sending was reset
+            schedule();
+        }
+
+        private void close() {
+            closed = true;
+            pending.clear();
+            unsubscribe(this);
+        }
+
+        private SseEmitter.SseEventBuilder toSseEvent(Entry entry) {
+            if (entry == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            if (entry == RESYNC) {
+                return SseEmitter.event().name("resync").data("");
+            }
+            return SseEmitter.event()
+                    .id(eventId(entry))
+                    .name(entry.event().type().getValue())
+                    .data(entry.event(), MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.devicesapi.lease;
+
+import com.example.devicesapi.scheduling.BatchDrain;
+import com.example.devicesapi.service.DeviceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Releases devices whose lease has expired, so devices leased by clients that never released them do not stay
+ * IN_USE forever.
+ *
+ * Every {@code devices.leases.sweep-interval} it releases batches of at most {@code devices.leases.sweep-batch-size}
+ * devices, each in its own short transaction, until no expired lease is left. Expired leases are found through
+ * the partial index on {@code lease_expires_at}, so a sweep costs in proportion to the expired leases rather than
+ * the number of devices. Concurrent sweeps of other instances skip the devices being released here.
+ * Released devices are counted as {@value #RECLAIMED_COUNTER}.
+ */
+@Component
+public class DeviceLeaseSweeper {
+    static final String RECLAIMED_COUNTER = "devices.leases.reclaimed";
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceLeaseSweeper.class);
+    private final DeviceService deviceService;
+    private final Counter reclaimed;
+    private final int batchSize;
+
+    public DeviceLeaseSweeper(DeviceService deviceService, MeterRegistry meterRegistry,
+                              @Value("${devices.leases.sweep-batch-size:500}") int batchSize) {
+        this.deviceService = deviceService;
+        this.reclaimed = Counter.builder(RECLAIMED_COUNTER)
+                .description("Devices released because their lease expired")
+                .baseUnit("devices")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${devices.leases.sweep-interval:30s}")
+    public void sweep() {
+        BatchDrain.run(logger, "release expired device leases", batchSize,
+                () -> deviceService.releaseExpiredLeases(batchSize), reclaimed);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.devicesapi.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Markers that opt log events into sampling by {@link SamplingTurboFilter}.
+ */
+public final class LogSampling {
+    /**
+     * Marks routine success-path events that may be dropped. Events without it are always logged.
+     */
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private LogSampling() {
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.devicesapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps only a share of the events marked {@link LogSampling#SAMPLED}, before any message formatting or
+ * appender work is done for them.
+ *
+ * Events at WARN or above and events without the marker are never dropped. The share is set with
+ * {@code rate}, between 0 (drop all sampled events) and 1 (keep all of them).
+ */
+public class SamplingTurboFilter extends TurboFilter {
+    private double rate = 1.0;
+
+    public void setRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Sampling rate must be between 0 and 1, got: " + rate);
+        }
+        this.rate = rate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (marker == null || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !marker.contains(LogSampling.SAMPLED)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+}
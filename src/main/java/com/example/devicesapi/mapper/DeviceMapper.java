@@ -3,7 +3,6 @@ package com.example.devicesapi.mapper;
 import com.example.devicesapi.entity.DeviceEntity;
 import com.example.devicesapi.model.CreateDeviceRequest;
 import com.example.devicesapi.model.DeviceResponse;
-import com.example.devicesapi.model.PartialUpdateDeviceRequest;
 import com.example.devicesapi.model.State;
 import org.springframework.stereotype.Component;
 
@@ -17,25 +16,12 @@ public class DeviceMapper {
 
     public DeviceEntity createDeviceRequestToEntity(CreateDeviceRequest request) {
         return new DeviceEntity(request.name(), request.brand(),
-                ofNullable(request.state())
-                        .map(State::getValue)
-                        .orElse(State.INACTIVE.getValue()));
+                ofNullable(request.state()).orElse(State.INACTIVE));
     }
 
     public DeviceEntity createDeviceRequestToEntity(CreateDeviceRequest request, long id) {
         return new DeviceEntity(id, request.name(), request.brand(),
-                ofNullable(request.state())
-                        .map(State::getValue)
-                        .orElse(State.INACTIVE.getValue()));
-    }
-
-    public DeviceEntity partialUpdateRequestToEntity(
-            PartialUpdateDeviceRequest request,
-            DeviceEntity existingEntity) {
-        return new DeviceEntity(existingEntity.getId(),
-                ofNullable(request.name()).orElse(existingEntity.getName()),
-                ofNullable(request.brand()).orElse(existingEntity.getBrand()),
-                ofNullable(request.state()).map(State::getValue).orElse(existingEntity.getState()));
+                ofNullable(request.state()).orElse(State.INACTIVE));
     }
 
     public DeviceResponse fromEntityToDeviceResponse(DeviceEntity entity) {
@@ -48,6 +34,7 @@ public class DeviceMapper {
                 entity.getName(),
                 entity.getBrand(),
                 entity.getState(),
-                created);
+                created,
+                entity.getVersion());
     }
 }
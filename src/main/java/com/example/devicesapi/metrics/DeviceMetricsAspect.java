@@ -0,0 +1,96 @@
+package com.example.devicesapi.metrics;
+
+import com.example.devicesapi.exception.BlockedResourceException;
+import com.example.devicesapi.exception.DuplicatedDataException;
+import com.example.devicesapi.exception.InvalidInputPropertyException;
+import com.example.devicesapi.exception.PreconditionFailedException;
+import com.example.devicesapi.exception.ResourceNotFoundException;
+import com.example.devicesapi.exception.StateConflictException;
+import com.example.devicesapi.model.DevicePage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every {@code DeviceService} operation and {@code DeviceRepository} call.
+ *
+ * Timers are named {@value #SERVICE_TIMER} and {@value #REPOSITORY_TIMER} and tagged with the method name as
+ * {@code operation} and the way it ended as {@code outcome}: {@code ok}, {@code not_found}, {@code blocked},
+ * {@code duplicate}, {@code precondition_failed}, {@code invalid}, {@code conflict} or {@code error}.
+ * The number of devices on each page returned by {@code getDevices} is recorded as {@value #PAGE_SIZE_SUMMARY}.
+ */
+@Aspect
+@Component
+public class DeviceMetricsAspect {
+    static final String SERVICE_TIMER = "devices.service";
+    static final String REPOSITORY_TIMER = "devices.repository";
+    static final String PAGE_SIZE_SUMMARY = "devices.page.size";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary pageSize;
+
+    public DeviceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.pageSize = DistributionSummary.builder(PAGE_SIZE_SUMMARY)
+                .description("Devices returned per GET /devices page")
+                .baseUnit("devices")
+                .register(meterRegistry);
+    }
+
+    @Around("execution(public * com.example.devicesapi.service.DeviceService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = time(SERVICE_TIMER, joinPoint);
+        if (result instanceof DevicePage page) {
+            pageSize.record(page.devices().size());
+        }
+        return result;
+    }
+
+    @Around("this(com.example.devicesapi.repository.DeviceRepository) && execution(public * *(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String timer, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "ok";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(timer)
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof ResourceNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof BlockedResourceException) {
+            return "blocked";
+        }
+        if (e instanceof DuplicatedDataException || e instanceof DataIntegrityViolationException) {
+            return "duplicate";
+        }
+        if (e instanceof PreconditionFailedException) {
+            return "precondition_failed";
+        }
+        if (e instanceof InvalidInputPropertyException) {
+            return "invalid";
+        }
+        if (e instanceof StateConflictException) {
+            return "conflict";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.devicesapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of a single entry of a batch device creation")
+public record BatchCreateResult(
+    @Schema(description = "Position of the entry in the request list", example = "0")
+    int index,
+
+    @Schema(description = "Outcome of the entry", example = "created")
+    BulkItemStatus status,
+
+    @Schema(description = "Reason when the entry was not created")
+    String details,
+
+    @Schema(description = "Created device, present only when status is created")
+    DeviceResponse device) {
+
+    public static BatchCreateResult created(int index, DeviceResponse device) {
+        return new BatchCreateResult(index, BulkItemStatus.CREATED, null, device);
+    }
+
+    public static BatchCreateResult duplicate(int index) {
+        return new BatchCreateResult(index, BulkItemStatus.DUPLICATE,
+                "Device with the same name and brand already exists", null);
+    }
+
+    public static BatchCreateResult invalid(int index, String details) {
+        return new BatchCreateResult(index, BulkItemStatus.INVALID, details, null);
+    }
+}
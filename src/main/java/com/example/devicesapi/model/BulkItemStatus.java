@@ -0,0 +1,24 @@
+package com.example.devicesapi.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum BulkItemStatus {
+    CREATED("created"), DUPLICATE("duplicate"), INVALID("invalid"),
+    UPDATED("updated"), UNCHANGED("unchanged"), NOT_FOUND("not-found");
+
+    private final String value;
+
+    BulkItemStatus(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.devicesapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Set;
+
+@Schema(description = "Request model for changing the state of many devices at once")
+public record BulkStateChangeRequest(
+
+    @NotEmpty
+    @Schema(description = "Ids of the devices to change", requiredMode = Schema.RequiredMode.REQUIRED)
+    Set<@NotNull Long> ids,
+
+    @NotNull
+    @Schema(description = "Target state of the devices", requiredMode = Schema.RequiredMode.REQUIRED)
+    State state) {
+
+}
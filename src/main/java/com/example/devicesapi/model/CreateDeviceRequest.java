@@ -2,19 +2,26 @@ package com.example.devicesapi.model;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 @Schema(description = "Request model for creating a new device")
 public record CreateDeviceRequest(
 
     @NotBlank
+    @Size(max = CreateDeviceRequest.MAX_LENGTH)
     @Schema(description = "Name of the device", requiredMode = Schema.RequiredMode.REQUIRED)
     String name,
 
     @NotBlank
+    @Size(max = CreateDeviceRequest.MAX_LENGTH)
     @Schema(description = "Device brand", requiredMode = Schema.RequiredMode.REQUIRED)
     String brand,
 
     @Schema(description = "Current state of the device", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
     State state) {
 
+    /**
+     * Maximum length of name and brand, the size of their columns.
+     */
+    public static final int MAX_LENGTH = 50;
 }
@@ -0,0 +1,18 @@
+package com.example.devicesapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "A device that has been created, updated or deleted, sent on the device change feed")
+public record DeviceChangeEvent(
+    @Schema(description = "Id of the device", example = "1")
+    long id,
+
+    @Schema(description = "What happened to the device", example = "updated")
+    DeviceChangeType type,
+
+    @Schema(description = "Brand of the device after the change, or before it when deleted")
+    String brand,
+
+    @Schema(description = "State of the device after the change, or before it when deleted", example = "available")
+    State state) {
+}
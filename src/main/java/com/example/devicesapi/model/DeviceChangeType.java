@@ -0,0 +1,23 @@
+package com.example.devicesapi.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum DeviceChangeType {
+    CREATED("created"), UPDATED("updated"), DELETED("deleted");
+
+    private final String value;
+
+    DeviceChangeType(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.devicesapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Number of devices of a brand in a state")
+public record DeviceCount(
+    @Schema(description = "Device brand", example = "Apple")
+    String brand,
+
+    @Schema(description = "Device state", example = "available")
+    State state,
+
+    @Schema(description = "Number of devices of the brand in the state", example = "42")
+    long count) {
+}
@@ -0,0 +1,59 @@
+package com.example.devicesapi.model;
+
+import com.example.devicesapi.exception.InvalidInputPropertyException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Properties of {@link DeviceResponse} a client can select with the {@code fields} query parameter,
+ * with the {@code devices} column each one is read from.
+ */
+public enum DeviceField {
+    ID("id", "id"), NAME("name", "name"), BRAND("brand", "brand"), STATE("state", "state"),
+    CREATED_AT("createdAt", "created_at");
+
+    private final String property;
+    private final String column;
+
+    DeviceField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Parse a comma-separated list of property names. The id is always selected as it identifies the device
+     * and positions the next page.
+     *
+     * @return the selected fields, or {@code null} when {@code fields} is absent and all fields are selected
+     * @throws InvalidInputPropertyException when a name is not a property of {@code DeviceResponse}
+     */
+    public static Set<DeviceField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+
+        Set<DeviceField> selected = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            selected.add(fromProperty(name.strip()));
+        }
+        return selected;
+    }
+
+    private static DeviceField fromProperty(String property) {
+        for (DeviceField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new InvalidInputPropertyException("Unknown field: " + property);
+    }
+}
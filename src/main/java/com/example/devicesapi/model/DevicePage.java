@@ -0,0 +1,12 @@
+package com.example.devicesapi.model;
+
+import java.util.List;
+
+/**
+ * A single keyset page of devices.
+ *
+ * @param devices    devices of the current page ordered by id
+ * @param nextCursor opaque cursor of the next page or {@code null} when this is the last page
+ */
+public record DevicePage(List<DeviceResponse> devices, String nextCursor) {
+}
@@ -1,11 +1,15 @@
 package com.example.devicesapi.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.time.OffsetDateTime;
+import java.util.Set;
 
 @Schema(description = "Response model for creating a new device")
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record DeviceResponse(
     @Schema(description = "Unique identifier of the device", example = "1")
     Long id,
@@ -17,13 +21,33 @@ public record DeviceResponse(
     String brand,
 
     @Schema(description = "Current state of the device", example = "available")
-    String state,
+    State state,
 
     @Schema(description = "Timestamp when the device was created", example = "2024-01-01T12:00:00")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ssXXX")
-    OffsetDateTime createdAt) {
+    OffsetDateTime createdAt,
+
+    @Schema(hidden = true)
+    @JsonIgnore
+    Long version) {
 
     public DeviceResponse() {
-        this(null, null, null, null, null);
+        this(null, null, null, null, null, null);
+    }
+
+    /**
+     * @return this device without the properties that are not among {@code fields}, which are then left out
+     * of the JSON; this device itself when {@code fields} is {@code null}
+     */
+    public DeviceResponse withFields(Set<DeviceField> fields) {
+        if (fields == null) {
+            return this;
+        }
+        return new DeviceResponse(id,
+                fields.contains(DeviceField.NAME) ? name : null,
+                fields.contains(DeviceField.BRAND) ? brand : null,
+                fields.contains(DeviceField.STATE) ? state : null,
+                fields.contains(DeviceField.CREATED_AT) ? createdAt : null,
+                version);
     }
 }
@@ -0,0 +1,46 @@
+package com.example.devicesapi.model;
+
+import com.example.devicesapi.exception.InvalidInputPropertyException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a keyset page. Clients only ever see the opaque {@link #encode() encoded} form
+ * and pass it back unchanged as the {@code after} query parameter.
+ *
+ * @param lastId id of the last device returned on the previous page
+ * @param lastScore relevance of the last device returned on the previous page of search results,
+ *                  {@code null} for pages ordered by id only
+ */
+public record PageCursor(long lastId, Float lastScore) {
+    public static final PageCursor START = new PageCursor(0);
+
+    public PageCursor(long lastId) {
+        this(lastId, null);
+    }
+
+    public String encode() {
+        String position = lastScore != null ? lastScore + ":" + lastId : Long.toString(lastId);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(':');
+            Float lastScore = separator >= 0 ? Float.valueOf(decoded.substring(0, separator)) : null;
+            long lastId = Long.parseLong(decoded.substring(separator + 1));
+            if (lastId < 0 || lastScore != null && !(lastScore >= 0 && lastScore <= 1)) {
+                throw new InvalidInputPropertyException("Invalid page cursor: " + cursor);
+            }
+            return new PageCursor(lastId, lastScore);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputPropertyException("Invalid page cursor: " + cursor);
+        }
+    }
+}
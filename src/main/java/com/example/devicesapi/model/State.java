@@ -4,9 +4,17 @@ import com.example.devicesapi.exception.InvalidInputPropertyException;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
+import java.util.Locale;
+import java.util.Map;
+
 public enum State {
     AVAILABLE("available"), IN_USE("in-use"), INACTIVE("inactive");
 
+    private static final Map<String, State> BY_VALUE = Map.of(
+            AVAILABLE.value, AVAILABLE,
+            IN_USE.value, IN_USE,
+            INACTIVE.value, INACTIVE);
+
     private final String value;
 
     State(String value) {
@@ -18,18 +26,24 @@ public enum State {
         return value;
     }
 
+    /**
+     * Case-insensitive lookup by value. Values already in the canonical lower case, as written to the database
+     * and by well-behaved clients, are resolved without allocating.
+     */
     @JsonCreator
     public static State fromValue(String value) {
         if (value == null) {
             return null;
         }
 
-        for (State state : State.values()) {
-            if (state.value.equalsIgnoreCase(value)) {
-                return state;
-            }
+        State state = BY_VALUE.get(value);
+        if (state == null) {
+            state = BY_VALUE.get(value.toLowerCase(Locale.ROOT));
+        }
+        if (state == null) {
+            throw new InvalidInputPropertyException("Unknown state value: " + value);
         }
-        throw new InvalidInputPropertyException("Unknown state value: " + value);
+        return state;
     }
 
     @Override
@@ -0,0 +1,13 @@
+package com.example.devicesapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of a bulk state change for a single device")
+public record StateChangeResult(
+    @Schema(description = "Id of the device", example = "1")
+    long id,
+
+    @Schema(description = "Outcome for the device: updated, unchanged (already in the target state) or not-found",
+            example = "updated")
+    BulkItemStatus status) {
+}
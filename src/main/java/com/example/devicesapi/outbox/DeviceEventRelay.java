@@ -0,0 +1,76 @@
+package com.example.devicesapi.outbox;
+
+import com.example.devicesapi.entity.DeviceEventEntity;
+import com.example.devicesapi.repository.DeviceEventRepository;
+import com.example.devicesapi.scheduling.BatchDrain;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves device events from the {@code device_events} outbox to the {@link DeviceEventSink}.
+ *
+ * Every {@code devices.outbox.poll-interval} it takes batches of at most {@code devices.outbox.batch-size} events
+ * until the outbox is drained. A batch is deleted and published in one transaction: if publishing fails,
+ * the transaction rolls back and the batch is published again by a later run. Rows taken by one instance are
+ * skipped by the others, so any number of instances relay concurrently without publishing an event twice.
+ * Events of one instance are published in id order; with several instances, batches may be published out of order.
+ *
+ * The relay only runs with {@code devices.outbox.enabled} on, so that no deployment writes events to a sink it did
+ * not configure. Events are recorded by the {@code devices_outbox} trigger whether or not the relay is enabled,
+ * so while it is off on every instance the trigger must be disabled as well
+ * ({@code ALTER TABLE devices DISABLE TRIGGER devices_outbox}) or {@code device_events} grows without bound.
+ */
+@Component
+public class DeviceEventRelay {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceEventRelay.class);
+    private final DeviceEventRepository deviceEventRepository;
+    private final DeviceEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter relayed;
+    private final int batchSize;
+    private final boolean enabled;
+
+    public DeviceEventRelay(DeviceEventRepository deviceEventRepository, DeviceEventSink sink,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            @Value("${devices.outbox.batch-size:500}") int batchSize,
+                            @Value("${devices.outbox.enabled:false}") boolean enabled) {
+        this.deviceEventRepository = deviceEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.relayed = Counter.builder("devices.outbox.relayed")
+                .description("Device events published from the outbox")
+                .baseUnit("events")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+        this.enabled = enabled;
+        if (!enabled) {
+            logger.warn("Device event relay is disabled; device_events keeps growing unless the devices_outbox "
+                    + "trigger is disabled too");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${devices.outbox.poll-interval:1s}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        BatchDrain.run(logger, "relay device events", batchSize,
+                () -> transactionTemplate.execute(status -> relayBatch()), relayed);
+    }
+
+    private int relayBatch() {
+        List<DeviceEventEntity> events = deviceEventRepository.takeOldest(batchSize);
+        if (!events.isEmpty()) {
+            sink.publish(events);
+        }
+        return events.size();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.devicesapi.outbox;
+
+import com.example.devicesapi.entity.DeviceEventEntity;
+
+import java.util.List;
+
+/**
+ * Destination of the device events relayed from the {@code device_events} outbox.
+ */
+public interface DeviceEventSink {
+
+    /**
+     * Deliver the events, ordered by id. Throwing leaves the whole batch in the outbox to be delivered again later,
+     * so events may be delivered more than once and receivers should ignore event ids they have already seen.
+     */
+    void publish(List<DeviceEventEntity> events);
+}
@@ -0,0 +1,89 @@
+package com.example.devicesapi.outbox;
+
+import com.example.devicesapi.entity.DeviceEventEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.NullNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends every event as a line of JSON to {@code devices.outbox.file}, the default {@link DeviceEventSink}.
+ *
+ * A batch is forced to disk before {@link #publish} returns, so an event is never removed from the outbox
+ * before it is durably in the file. Each line holds the event id, device id, type, the device row before and after
+ * the change and when it was recorded.
+ */
+@Component
+@ConditionalOnProperty(name = "devices.outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileDeviceEventSink implements DeviceEventSink {
+    private final JsonMapper jsonMapper;
+    private final Path file;
+    // serializes appends; a lock rather than a monitor so a virtual thread waiting for the fsync does not pin its
+    // carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public FileDeviceEventSink(JsonMapper jsonMapper,
+                               @Value("${devices.outbox.file:device-events.ndjson}") Path file) {
+        this.jsonMapper = jsonMapper;
+        this.file = file;
+    }
+
+    @Override
+    public void publish(List<DeviceEventEntity> events) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (DeviceEventEntity event : events) {
+            ObjectNode line = jsonMapper.createObjectNode()
+                    .put("id", event.getId())
+                    .put("deviceId", event.getDeviceId())
+                    .put("type", event.getType());
+            line.set("before", device(event.getOldDevice()));
+            line.set("after", device(event.getNewDevice()));
+            line.put("createdAt", event.getCreatedAt().toString());
+            lines.writeBytes(jsonMapper.writeValueAsBytes(line));
+            lines.write('\n');
+        }
+        lock.lock();
+        try {
+            append(lines.toByteArray());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(byte[] lines) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write device events to " + file, e);
+        }
+    }
+
+    private JsonNode device(String json) {
+        return json == null ? NullNode.getInstance() : jsonMapper.readTree(json);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.devicesapi.repository;
+
+import com.example.devicesapi.model.DeviceCount;
+
+import java.util.List;
+
+/**
+ * Device counts together with the snapshot they were read at.
+ *
+ * @param counts   one count per brand and state that has at least one device, ordered by brand and state
+ * @param snapshot transactions whose changes are included in the counts
+ */
+public record DeviceCountSnapshot(List<DeviceCount> counts, TransactionSnapshot snapshot) {
+}
@@ -0,0 +1,25 @@
+package com.example.devicesapi.repository;
+
+import com.example.devicesapi.entity.DeviceEventEntity;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+public interface DeviceEventRepository extends Repository<DeviceEventEntity, Long> {
+
+    /**
+     * Remove and return the oldest undelivered events, skipping those taken by a concurrent relay.
+     * Must be called inside a transaction that only commits once the events have been delivered,
+     * so they are restored if delivery fails. The events are returned ordered by id: RETURNING alone gives no order.
+     */
+    @Query("""
+            WITH taken AS (
+                DELETE FROM device_events
+                WHERE id IN (SELECT id FROM device_events ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED)
+                RETURNING id, device_id, type, old_device::text AS old_device, new_device::text AS new_device,
+                          created_at
+            )
+            SELECT * FROM taken ORDER BY id""")
+    List<DeviceEventEntity> takeOldest(int limit);
+}
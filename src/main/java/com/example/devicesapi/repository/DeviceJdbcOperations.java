@@ -0,0 +1,72 @@
+package com.example.devicesapi.repository;
+
+import com.example.devicesapi.entity.DeviceEntity;
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.DeviceField;
+import com.example.devicesapi.model.State;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Device queries that need plain JDBC rather than Spring Data derived or {@code @Query} methods.
+ */
+public interface DeviceJdbcOperations {
+
+    /**
+     * Stream every device ordered by id to the given action using a server-side cursor,
+     * so only one fetch batch is held in memory at a time.
+     * Must be called inside a transaction, otherwise the PostgreSQL driver materializes the whole result set.
+     */
+    void forEachDevice(Consumer<DeviceEntity> action);
+
+    /**
+     * Insert all devices with a single multi-row statement, silently skipping every device whose
+     * name and brand already exist.
+     *
+     * @return the inserted rows including generated id and creation timestamp; skipped devices are absent
+     */
+    List<DeviceEntity> insertIgnoringDuplicates(List<DeviceEntity> devices);
+
+    /**
+     * Move all given devices to the target state with a single statement. Rows are locked in id order
+     * and devices already in the target state are left untouched.
+     *
+     * @return for every existing device among {@code ids}, whether its state has been changed; missing ids are absent
+     */
+    Map<Long, Boolean> updateStates(Collection<Long> ids, State state);
+
+    /**
+     * Count devices per brand and state with a single aggregate query.
+     *
+     * @return one count per brand and state that has at least one device, ordered by brand and state
+     */
+    List<DeviceCount> countByBrandAndState();
+
+    /**
+     * Count devices per brand and state like {@link #countByBrandAndState()}, also returning the snapshot the counts
+     * were read at, so changes notified afterwards can be told apart from those already counted.
+     */
+    DeviceCountSnapshot countByBrandAndStateWithSnapshot();
+
+    /**
+     * Keyset page of devices reading only the columns of the given fields, optionally filtered by brand and/or state.
+     * The id is always read; the other properties of the returned entities are {@code null} unless selected.
+     */
+    List<DeviceEntity> findProjectedPage(Set<DeviceField> fields, String brand, State state, long afterId, int limit);
+
+    /**
+     * Keyset page of devices whose name or brand contains {@code query}, ignoring case, optionally filtered
+     * by brand and/or state. Devices are ordered by relevance, the best word similarity of the query to their name
+     * or brand, and then by id. Only the columns of the given fields are read, all columns when {@code fields} is
+     * {@code null}.
+     *
+     * @param afterScore relevance of the last device of the previous page, {@code null} for the first page
+     * @param afterId id of the last device of the previous page, ignored for the first page
+     */
+    List<DeviceSearchHit> searchPage(String query, Set<DeviceField> fields, String brand, State state,
+                                     Float afterScore, long afterId, int limit);
+}
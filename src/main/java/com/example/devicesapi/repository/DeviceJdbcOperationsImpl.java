@@ -0,0 +1,226 @@
+package com.example.devicesapi.repository;
+
+import com.example.devicesapi.entity.DeviceEntity;
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.DeviceField;
+import com.example.devicesapi.model.State;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+public class DeviceJdbcOperationsImpl implements DeviceJdbcOperations {
+    private static final String INSERT_IGNORING_DUPLICATES = """
+            INSERT INTO devices (name, brand, state)
+            SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::device_state[])
+            ON CONFLICT (name, brand) DO NOTHING
+            RETURNING *""";
+    private static final String UPDATE_STATES = """
+            WITH target AS (
+                SELECT id, state FROM devices WHERE id = ANY(?) ORDER BY id FOR UPDATE
+            ), updated AS (
+                UPDATE devices d SET state = ?::device_state, lease_expires_at = NULL, version = d.version + 1
+                FROM target t
+                WHERE d.id = t.id AND t.state <> ?::device_state
+                RETURNING d.id
+            )
+            SELECT t.id, u.id IS NOT NULL AS changed FROM target t LEFT JOIN updated u ON u.id = t.id""";
+    private static final String COUNT_BY_BRAND_AND_STATE = """
+            SELECT brand, state, count(*) AS count FROM devices
+            GROUP BY brand, state
+            ORDER BY brand, state""";
+    // pg_current_snapshot() is the snapshot of this statement; the outer join returns it for an empty table too
+    private static final String COUNT_BY_BRAND_AND_STATE_WITH_SNAPSHOT = """
+            SELECT pg_current_snapshot()::text AS snapshot, c.brand, c.state, c.count
+            FROM (VALUES (1)) AS s
+            LEFT JOIN (SELECT brand, state, count(*) AS count FROM devices GROUP BY brand, state) AS c ON true
+            ORDER BY c.brand, c.state""";
+
+    static final RowMapper<DeviceEntity> DEVICE_ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new DeviceEntity(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("brand"),
+                State.fromValue(rs.getString("state")),
+                createdAt != null ? createdAt.toInstant() : null,
+                rs.getLong("version"));
+    };
+
+    private static RowMapper<DeviceEntity> projectedRowMapper(Set<DeviceField> fields) {
+        boolean name = fields.contains(DeviceField.NAME);
+        boolean brand = fields.contains(DeviceField.BRAND);
+        boolean state = fields.contains(DeviceField.STATE);
+        boolean created = fields.contains(DeviceField.CREATED_AT);
+        return (rs, rowNum) -> {
+            Timestamp createdAt = created ? rs.getTimestamp("created_at") : null;
+            return new DeviceEntity(
+                    rs.getLong("id"),
+                    name ? rs.getString("name") : null,
+                    brand ? rs.getString("brand") : null,
+                    state ? State.fromValue(rs.getString("state")) : null,
+                    createdAt != null ? createdAt.toInstant() : null,
+                    null);
+        };
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int exportFetchSize;
+
+    public DeviceJdbcOperationsImpl(JdbcTemplate jdbcTemplate,
+                                    @Value("${devices.export.fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    @Override
+    public void forEachDevice(Consumer<DeviceEntity> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT * FROM devices ORDER BY id", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(exportFetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(DEVICE_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public List<DeviceEntity> insertIgnoringDuplicates(List<DeviceEntity> devices) {
+        if (devices.isEmpty()) {
+            return List.of();
+        }
+        String[] names = new String[devices.size()];
+        String[] brands = new String[devices.size()];
+        String[] states = new String[devices.size()];
+        for (int i = 0; i < devices.size(); i++) {
+            DeviceEntity device = devices.get(i);
+            names[i] = device.getName();
+            brands[i] = device.getBrand();
+            states[i] = device.getState().getValue();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_IGNORING_DUPLICATES);
+            statement.setArray(1, connection.createArrayOf("varchar", names));
+            statement.setArray(2, connection.createArrayOf("varchar", brands));
+            statement.setArray(3, connection.createArrayOf("varchar", states));
+            return statement;
+        }, DEVICE_ROW_MAPPER);
+    }
+
+    @Override
+    public Map<Long, Boolean> updateStates(Collection<Long> ids, State state) {
+        Map<Long, Boolean> changed = new HashMap<>();
+        if (ids.isEmpty()) {
+            return changed;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPDATE_STATES);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            statement.setString(2, state.getValue());
+            statement.setString(3, state.getValue());
+            return statement;
+        }, (RowCallbackHandler) rs -> changed.put(rs.getLong("id"), rs.getBoolean("changed")));
+        return changed;
+    }
+
+    @Override
+    public List<DeviceCount> countByBrandAndState() {
+        return jdbcTemplate.query(COUNT_BY_BRAND_AND_STATE, (rs, rowNum) -> new DeviceCount(
+                rs.getString("brand"), State.fromValue(rs.getString("state")), rs.getLong("count")));
+    }
+
+    @Override
+    public DeviceCountSnapshot countByBrandAndStateWithSnapshot() {
+        List<DeviceCount> counts = new ArrayList<>();
+        String[] snapshot = new String[1];
+        jdbcTemplate.query(COUNT_BY_BRAND_AND_STATE_WITH_SNAPSHOT, (RowCallbackHandler) rs -> {
+            snapshot[0] = rs.getString("snapshot");
+            if (rs.getString("brand") != null) {
+                counts.add(new DeviceCount(rs.getString("brand"), State.fromValue(rs.getString("state")),
+                        rs.getLong("count")));
+            }
+        });
+        return new DeviceCountSnapshot(counts, TransactionSnapshot.parse(snapshot[0]));
+    }
+
+    @Override
+    public List<DeviceEntity> findProjectedPage(Set<DeviceField> fields, String brand, State state,
+                                                long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns(fields)).append(" FROM devices WHERE id > ?");
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        if (brand != null) {
+            sql.append(" AND brand = ?");
+            args.add(brand);
+        }
+        if (state != null) {
+            sql.append(" AND state = ?::device_state");
+            args.add(state.getValue());
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), projectedRowMapper(fields), args.toArray());
+    }
+
+    @Override
+    public List<DeviceSearchHit> searchPage(String query, Set<DeviceField> fields, String brand, State state,
+                                            Float afterScore, long afterId, int limit) {
+        String pattern = "%" + escapeLike(query) + "%";
+        StringBuilder sql = new StringBuilder("SELECT * FROM (SELECT ")
+                .append(fields == null ? "*" : columns(fields))
+                .append(", GREATEST(word_similarity(?, name), word_similarity(?, brand)) AS score")
+                .append(" FROM devices WHERE (name ILIKE ? OR brand ILIKE ?)");
+        List<Object> args = new ArrayList<>(List.of(query, query, pattern, pattern));
+        if (brand != null) {
+            sql.append(" AND brand = ?");
+            args.add(brand);
+        }
+        if (state != null) {
+            sql.append(" AND state = ?::device_state");
+            args.add(state.getValue());
+        }
+        sql.append(") matches");
+        if (afterScore != null) {
+            sql.append(" WHERE score < CAST(? AS real) OR (score = CAST(? AS real) AND id > ?)");
+            args.add(afterScore);
+            args.add(afterScore);
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY score DESC, id LIMIT ?");
+        args.add(limit);
+
+        RowMapper<DeviceEntity> rowMapper = fields == null ? DEVICE_ROW_MAPPER : projectedRowMapper(fields);
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new DeviceSearchHit(rowMapper.mapRow(rs, rowNum), rs.getFloat("score")),
+                args.toArray());
+    }
+
+    private static String columns(Set<DeviceField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add(DeviceField.ID.getColumn());
+        for (DeviceField field : fields) {
+            if (field != DeviceField.ID) {
+                columns.add(field.getColumn());
+            }
+        }
+        return columns.toString();
+    }
+
+    /**
+     * Match the query literally: wildcards and the escape character lose their meaning in a LIKE pattern.
+     */
+    private static String escapeLike(String query) {
+        return query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,17 +1,138 @@
 package com.example.devicesapi.repository;
 
 import com.example.devicesapi.entity.DeviceEntity;
+import com.example.devicesapi.model.State;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface DeviceRepository extends CrudRepository<DeviceEntity, Long> {
+public interface DeviceRepository extends CrudRepository<DeviceEntity, Long>, DeviceJdbcOperations {
 
-    List<DeviceEntity> findByBrandAndState(String brand, String state);
+    @Query("SELECT * FROM devices WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<DeviceEntity> findPage(long afterId, int limit);
 
-    List<DeviceEntity> findByState(String name);
+    @Query("SELECT * FROM devices WHERE brand = :brand AND id > :afterId ORDER BY id LIMIT :limit")
+    List<DeviceEntity> findPageByBrand(String brand, long afterId, int limit);
 
-    List<DeviceEntity> findByBrand(String brand);
+    @Query("SELECT * FROM devices WHERE state = :state AND id > :afterId ORDER BY id LIMIT :limit")
+    List<DeviceEntity> findPageByState(State state, long afterId, int limit);
 
-    List<DeviceEntity> findAll();
+    @Query("SELECT * FROM devices WHERE brand = :brand AND state = :state AND id > :afterId ORDER BY id LIMIT :limit")
+    List<DeviceEntity> findPageByBrandAndState(String brand, State state, long afterId, int limit);
+
+    /**
+     * Replace name, brand and state of a device that is not IN_USE.
+     * When {@code version} is not null the device must also still have that version.
+     */
+    @Transactional
+    @Query("""
+            UPDATE devices SET name = :name, brand = :brand, state = :state, version = version + 1
+            WHERE id = :id AND state <> 'in-use'
+              AND (CAST(:version AS BIGINT) IS NULL OR version = :version)
+            RETURNING *""")
+    Optional<DeviceEntity> updateIfNotInUse(long id, String name, String brand, State state, Long version);
+
+    /**
+     * Apply the non-null values to the device. Name and brand may only change while the device is not IN_USE.
+     * When {@code version} is not null the device must also still have that version.
+     */
+    @Transactional
+    @Query("""
+            UPDATE devices SET name = COALESCE(CAST(:name AS VARCHAR), name),
+                               brand = COALESCE(CAST(:brand AS VARCHAR), brand),
+                               state = COALESCE(CAST(:state AS device_state), state),
+                               lease_expires_at = CASE WHEN CAST(:state AS device_state) IS NULL
+                                                       THEN lease_expires_at END,
+                               version = version + 1
+            WHERE id = :id
+              AND (state <> 'in-use' OR (CAST(:name AS VARCHAR) IS NULL AND CAST(:brand AS VARCHAR) IS NULL))
+              AND (CAST(:version AS BIGINT) IS NULL OR version = :version)
+            RETURNING *""")
+    Optional<DeviceEntity> partialUpdateIfAllowed(long id, String name, String brand, State state, Long version);
+
+    /**
+     * Delete a device that is not IN_USE.
+     * When {@code version} is not null the device must also still have that version.
+     */
+    @Transactional
+    @Query("""
+            DELETE FROM devices
+            WHERE id = :id AND state <> 'in-use'
+              AND (CAST(:version AS BIGINT) IS NULL OR version = :version)
+            RETURNING *""")
+    Optional<DeviceEntity> deleteIfNotInUse(long id, Long version);
+
+    /**
+     * Move a device from AVAILABLE to IN_USE, leased for {@code leaseSeconds} from now.
+     */
+    @Transactional
+    @Query("""
+            UPDATE devices SET state = 'in-use',
+                               lease_expires_at = now() + make_interval(secs => :leaseSeconds),
+                               version = version + 1
+            WHERE id = :id AND state = 'available'
+            RETURNING *""")
+    Optional<DeviceEntity> leaseIfAvailable(long id, long leaseSeconds);
+
+    /**
+     * Move a device from IN_USE back to AVAILABLE.
+     */
+    @Transactional
+    @Query("""
+            UPDATE devices SET state = 'available', lease_expires_at = NULL, version = version + 1
+            WHERE id = :id AND state = 'in-use'
+            RETURNING *""")
+    Optional<DeviceEntity> releaseIfInUse(long id);
+
+    /**
+     * Move up to {@code count} AVAILABLE devices, lowest ids first, to IN_USE, leased for {@code leaseSeconds}.
+     * Devices locked by concurrent transactions are skipped instead of waited for.
+     */
+    @Transactional
+    @Query("""
+            WITH leased AS MATERIALIZED (
+                SELECT id FROM devices WHERE state = 'available'
+                ORDER BY id LIMIT :count FOR UPDATE SKIP LOCKED)
+            UPDATE devices SET state = 'in-use',
+                               lease_expires_at = now() + make_interval(secs => :leaseSeconds),
+                               version = version + 1
+            FROM leased WHERE devices.id = leased.id
+            RETURNING devices.*""")
+    List<DeviceEntity> leaseAvailable(int count, long leaseSeconds);
+
+    /**
+     * Move up to {@code count} AVAILABLE devices of a brand, lowest ids first, to IN_USE,
+     * leased for {@code leaseSeconds}.
+     * Devices locked by concurrent transactions are skipped instead of waited for.
+     */
+    @Transactional
+    @Query("""
+            WITH leased AS MATERIALIZED (
+                SELECT id FROM devices WHERE brand = :brand AND state = 'available'
+                ORDER BY id LIMIT :count FOR UPDATE SKIP LOCKED)
+            UPDATE devices SET state = 'in-use',
+                               lease_expires_at = now() + make_interval(secs => :leaseSeconds),
+                               version = version + 1
+            FROM leased WHERE devices.id = leased.id
+            RETURNING devices.*""")
+    List<DeviceEntity> leaseAvailableByBrand(String brand, int count, long leaseSeconds);
+
+    /**
+     * Move up to {@code limit} IN_USE devices whose lease has expired back to AVAILABLE, oldest leases first.
+     * Devices locked by concurrent transactions are skipped and released by a later call.
+     *
+     * @return ids of the released devices
+     */
+    @Transactional
+    @Query("""
+            WITH expired AS MATERIALIZED (
+                SELECT id FROM devices WHERE lease_expires_at <= now() AND state = 'in-use'
+                ORDER BY lease_expires_at LIMIT :limit FOR UPDATE SKIP LOCKED)
+            UPDATE devices SET state = 'available', lease_expires_at = NULL, version = version + 1
+            FROM expired WHERE devices.id = expired.id
+            RETURNING devices.id""")
+    List<Long> releaseExpiredLeases(int limit);
 }
@@ -0,0 +1,12 @@
+package com.example.devicesapi.repository;
+
+import com.example.devicesapi.entity.DeviceEntity;
+
+/**
+ * A device found by a search with its relevance to the query.
+ *
+ * @param device the matching device
+ * @param score relevance between 0 and 1, higher is more relevant
+ */
+public record DeviceSearchHit(DeviceEntity device, float score) {
+}
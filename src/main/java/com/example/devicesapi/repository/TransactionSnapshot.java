@@ -0,0 +1,39 @@
+package com.example.devicesapi.repository;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The transactions whose changes a query saw, as reported by Postgres' {@code pg_current_snapshot()}.
+ *
+ * @param xmin       every transaction below it had finished when the snapshot was taken
+ * @param xmax       no transaction at or above it had finished when the snapshot was taken
+ * @param inProgress transactions between {@code xmin} and {@code xmax} still running when the snapshot was taken
+ */
+public record TransactionSnapshot(long xmin, long xmax, Set<Long> inProgress) {
+
+    /**
+     * @param snapshot text form of a {@code pg_snapshot}, {@code xmin:xmax:xip,...}
+     */
+    public static TransactionSnapshot parse(String snapshot) {
+        String[] parts = snapshot.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid transaction snapshot: " + snapshot);
+        }
+        Set<Long> inProgress = parts[2].isEmpty() ? Set.of() : Arrays.stream(parts[2].split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+        return new TransactionSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), inProgress);
+    }
+
+    /**
+     * @return whether the changes committed by the given transaction were visible to the query
+     */
+    public boolean isVisible(long transactionId) {
+        if (transactionId < xmin) {
+            return true;
+        }
+        return transactionId < xmax && !inProgress.contains(transactionId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.devicesapi.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+
+import java.util.function.IntSupplier;
+
+/**
+ * The loop shared by scheduled jobs that work through a backlog in bounded batches, such as relaying the outbox
+ * or releasing expired leases.
+ */
+public final class BatchDrain {
+
+    private BatchDrain() {
+    }
+
+    /**
+     * Run {@code batch} until it processes fewer than {@code batchSize} items, counting every processed item.
+     * A failing batch ends the run and is logged rather than thrown, so the scheduler runs the job again at its
+     * next run; batches completed before the failure stay done.
+     *
+     * @param logger    logger of the job the failure is reported to
+     * @param job       what the job does, e.g. {@code "relay device events"}
+     * @param batchSize maximum number of items processed by one batch
+     * @param batch     processes one batch and returns the number of processed items
+     * @param processed counter incremented by the number of processed items
+     */
+    public static void run(Logger logger, String job, int batchSize, IntSupplier batch, Counter processed) {
+        try {
+            int count;
+            do {
+                count = batch.getAsInt();
+                processed.increment(count);
+            } while (count == batchSize);
+        } catch (RuntimeException e) {
+            logger.error("Failed to {}, retrying on the next run", job, e);
+        }
+    }
+}
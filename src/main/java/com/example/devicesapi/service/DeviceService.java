@@ -1,33 +1,77 @@
 package com.example.devicesapi.service;
 
+import com.example.devicesapi.cache.DeviceCache;
+import com.example.devicesapi.cache.DeviceCounters;
+import com.example.devicesapi.cache.DeviceStatsCache;
 import com.example.devicesapi.entity.DeviceEntity;
 import com.example.devicesapi.exception.BlockedResourceException;
 import com.example.devicesapi.exception.DuplicatedDataException;
+import com.example.devicesapi.exception.InvalidInputPropertyException;
+import com.example.devicesapi.exception.PreconditionFailedException;
 import com.example.devicesapi.exception.ResourceNotFoundException;
+import com.example.devicesapi.exception.StateConflictException;
 import com.example.devicesapi.mapper.DeviceMapper;
+import com.example.devicesapi.model.BatchCreateResult;
+import com.example.devicesapi.model.BulkItemStatus;
+import com.example.devicesapi.model.BulkStateChangeRequest;
 import com.example.devicesapi.model.CreateDeviceRequest;
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.DeviceField;
+import com.example.devicesapi.model.DevicePage;
 import com.example.devicesapi.model.DeviceResponse;
+import com.example.devicesapi.model.PageCursor;
 import com.example.devicesapi.model.PartialUpdateDeviceRequest;
 import com.example.devicesapi.model.State;
+import com.example.devicesapi.model.StateChangeResult;
 import com.example.devicesapi.repository.DeviceRepository;
+import com.example.devicesapi.repository.DeviceSearchHit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.example.devicesapi.logging.LogSampling.SAMPLED;
 
 @Service
 public class DeviceService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10_000;
+    public static final int MAX_QUERY_LENGTH = 100;
+    private static final int BATCH_CHUNK_SIZE = 500;
+
     private static final Logger logger = LoggerFactory.getLogger(DeviceService.class);
     private final DeviceRepository deviceRepository;
     private final DeviceMapper deviceMapper;
+    private final DeviceCache deviceCache;
+    private final DeviceStatsCache deviceStatsCache;
+    private final DeviceCounters deviceCounters;
+    private final Duration leaseDuration;
 
     public DeviceService(DeviceRepository deviceRepository,
-                         DeviceMapper deviceMapper) {
+                         DeviceMapper deviceMapper,
+                         DeviceCache deviceCache,
+                         DeviceStatsCache deviceStatsCache,
+                         DeviceCounters deviceCounters,
+                         @Value("${devices.leases.duration:15m}") Duration leaseDuration) {
         this.deviceRepository = deviceRepository;
         this.deviceMapper = deviceMapper;
+        this.deviceCache = deviceCache;
+        this.deviceStatsCache = deviceStatsCache;
+        this.deviceCounters = deviceCounters;
+        this.leaseDuration = leaseDuration;
     }
 
     /**
@@ -36,101 +80,173 @@ public class DeviceService {
      * Steps:
      * - Map request to {@code DeviceEntity}
      * - Save entity via repository
-     * - Map saved entity to {@code DeviceResponse}
+     * - Map saved entity to {@code DeviceResponse} and cache it
      *
      * @param deviceRequest the request with device data
      * @return created {@code DeviceResponse}
      * @throws DuplicatedDataException when a device with the same name and brand exists
      */
     public DeviceResponse createDevice(CreateDeviceRequest deviceRequest) {
-        logger.info("Creating new device with name: {} and brand: {}",
-                deviceRequest.name(), deviceRequest.brand());
         try {
             DeviceEntity saved = deviceRepository.save(
                     deviceMapper.createDeviceRequestToEntity(deviceRequest));
-            logger.info("Created new device with id: {}", saved.getId());
-            return deviceMapper.fromEntityToDeviceResponse(saved);
+            logger.info(SAMPLED, "Created new device with id: {}, name: {} and brand: {}",
+                    saved.getId(), saved.getName(), saved.getBrand());
+            DeviceResponse device = deviceMapper.fromEntityToDeviceResponse(saved);
+            deviceCache.put(device);
+            return device;
         } catch (DataIntegrityViolationException e) {
             logger.error("Data integrity violation while creating device: {}", e.getMessage());
             throw new DuplicatedDataException("Device with the same name and brand already exists");
         }
     }
 
+    /**
+     * Persist a batch of new devices and report the outcome of every entry.
+     *
+     * Steps:
+     * - Reject entries without name or brand, with a name or brand longer than its column
+     *   and repeated name+brand pairs within the batch
+     * - Insert the remaining entries in chunks of {@value #BATCH_CHUNK_SIZE}, one multi-row statement
+     *   (and therefore one transaction) per chunk, skipping name+brand pairs that already exist
+     * - Map inserted entities to {@code DeviceResponse} in request order
+     *
+     * @param deviceRequests the requests with device data
+     * @return one {@code BatchCreateResult} per request entry, in request order
+     * @throws InvalidInputPropertyException when the batch is empty or larger than {@value #MAX_BATCH_SIZE}
+     */
+    public List<BatchCreateResult> createDevices(List<CreateDeviceRequest> deviceRequests) {
+        if (deviceRequests == null || deviceRequests.isEmpty() || deviceRequests.size() > MAX_BATCH_SIZE) {
+            throw new InvalidInputPropertyException(
+                    "Batch must contain between 1 and " + MAX_BATCH_SIZE + " devices");
+        }
+
+        BatchCreateResult[] results = new BatchCreateResult[deviceRequests.size()];
+        Map<DeviceKey, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < deviceRequests.size(); i++) {
+            CreateDeviceRequest request = deviceRequests.get(i);
+            if (request == null || isBlank(request.name()) || isBlank(request.brand())) {
+                results[i] = BatchCreateResult.invalid(i, "name and brand must not be blank");
+            } else if (request.name().length() > CreateDeviceRequest.MAX_LENGTH
+                    || request.brand().length() > CreateDeviceRequest.MAX_LENGTH) {
+                results[i] = BatchCreateResult.invalid(i,
+                        "name and brand must be at most " + CreateDeviceRequest.MAX_LENGTH + " characters");
+            } else if (pending.putIfAbsent(new DeviceKey(request.name(), request.brand()), i) != null) {
+                results[i] = BatchCreateResult.duplicate(i);
+            }
+        }
+
+        List<Integer> indexes = List.copyOf(pending.values());
+        int created = 0;
+        for (int from = 0; from < indexes.size(); from += BATCH_CHUNK_SIZE) {
+            List<Integer> chunk = indexes.subList(from, Math.min(from + BATCH_CHUNK_SIZE, indexes.size()));
+            List<DeviceEntity> inserted = deviceRepository.insertIgnoringDuplicates(chunk.stream()
+                    .map(i -> deviceMapper.createDeviceRequestToEntity(deviceRequests.get(i)))
+                    .toList());
+
+            Map<DeviceKey, DeviceEntity> insertedByKey = new HashMap<>();
+            inserted.forEach(entity -> insertedByKey.put(new DeviceKey(entity.getName(), entity.getBrand()), entity));
+            for (int i : chunk) {
+                CreateDeviceRequest request = deviceRequests.get(i);
+                DeviceEntity entity = insertedByKey.get(new DeviceKey(request.name(), request.brand()));
+                results[i] = entity != null
+                        ? BatchCreateResult.created(i, deviceMapper.fromEntityToDeviceResponse(entity))
+                        : BatchCreateResult.duplicate(i);
+            }
+            created += inserted.size();
+        }
+
+        logger.info("Created {} of {} devices in batch", created, deviceRequests.size());
+        return List.of(results);
+    }
+
     /**
      * Fetch a device by id and return its DTO.
      *
      * Steps:
-     * - Query repository by id
-     * - Map entity to {@code DeviceResponse} if found
+     * - Return the cached {@code DeviceResponse} if present
+     * - Otherwise query repository by id, map the entity to {@code DeviceResponse} and cache it if found
      *
      * @param id the device id
      * @return {@code DeviceResponse} for the given id
      * @throws ResourceNotFoundException when device not found
      */
     public DeviceResponse getDeviceById(long id) {
-        return deviceRepository.findById(id)
+        DeviceResponse device = deviceCache.get(id, key -> deviceRepository.findById(key)
                 .map(deviceMapper::fromEntityToDeviceResponse)
-                .orElseThrow(() -> new ResourceNotFoundException("Device not found with id: " + id));
+                .orElse(null));
+        if (device == null) {
+            throw new ResourceNotFoundException("Device not found with id: " + id);
+        }
+        return device;
     }
 
     /**
      * Fully update an existing device and return updated DTO.
      *
      * Steps:
-     * - Load existing entity by id
-     * - Validate state (cannot update if IN_USE)
-     * - Map incoming request to entity preserving id and save
+     * - Map incoming request to entity preserving id
+     * - Resolve which of the expected versions, if given, the statement has to match
+     * - Update the row with a single statement that only matches when the device is not IN_USE
+     *   and, if given, still has the expected version
+     * - Cache the updated device; when nothing was updated, tell a missing device from an outdated or blocked one
      *
      * @param id the device id
      * @param deviceRequest the full device update request
+     * @param expectedVersions optional versions of which the device must still have one
      * @return updated {@code DeviceResponse}
      * @throws ResourceNotFoundException when device not found
+     * @throws PreconditionFailedException when device version differs from the expected ones
      * @throws BlockedResourceException when device is IN_USE
      * @throws DuplicatedDataException when name+brand duplicates an existing device
      */
-    public DeviceResponse updateDevice(long id, CreateDeviceRequest deviceRequest) {
-        DeviceEntity existingDevice = deviceRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Device not found with id: {}" + id));
-
-        if (existingDevice.getState().equals(State.IN_USE.getValue())) {
-            throw new BlockedResourceException("Cannot update a device that is currently IN_USE");
-        }
-
-        existingDevice = deviceMapper.createDeviceRequestToEntity(deviceRequest, id);
+    public DeviceResponse updateDevice(long id, CreateDeviceRequest deviceRequest, Set<Long> expectedVersions) {
+        DeviceEntity device = deviceMapper.createDeviceRequestToEntity(deviceRequest, id);
 
+        Optional<DeviceEntity> updatedDevice;
         try {
-            DeviceEntity updatedDevice = deviceRepository.save(existingDevice);
-            return deviceMapper.fromEntityToDeviceResponse(updatedDevice);
+            updatedDevice = deviceRepository.updateIfNotInUse(id, device.getName(), device.getBrand(),
+                    device.getState(), versionToMatch(id, expectedVersions));
         } catch (DataIntegrityViolationException e) {
             logger.error("Data integrity violation while updating device: {}", e.getMessage());
             throw new DuplicatedDataException("Device with the same name and brand already exists");
         }
+
+        DeviceResponse response = updatedDevice
+                .map(deviceMapper::fromEntityToDeviceResponse)
+                .orElseThrow(() -> rejectedMutation(id, expectedVersions,
+                        "Cannot update a device that is currently IN_USE"));
+        deviceCache.put(response);
+        logger.info(SAMPLED, "Updated device with id: {}", id);
+        return response;
     }
 
     /**
      * Delete a device by id and return the deleted device DTO (state before deletion).
      *
      * Steps:
-     * - Load existing entity by id
-     * - Validate state (cannot delete if IN_USE)
-     * - Delete via repository and return previous representation
+     * - Resolve which of the expected versions, if given, the statement has to match
+     * - Delete the row with a single statement that only matches when the device is not IN_USE
+     *   and, if given, still has the expected version
+     * - When nothing was deleted, tell a missing device from an outdated or blocked one
+     * - Evict the device from the cache and return the representation of the deleted row
      *
      * @param id the device id
+     * @param expectedVersions optional versions of which the device must still have one
      * @return {@code DeviceResponse} representing the deleted device
      * @throws ResourceNotFoundException when device not found
+     * @throws PreconditionFailedException when device version differs from the expected ones
      * @throws BlockedResourceException when device is IN_USE
      */
-    public DeviceResponse deleteDevice(long id) {
-        Optional<DeviceEntity> optionalEntity = deviceRepository.findById(id);
-        if (optionalEntity.isEmpty()) {
-            logger.error("Attempted to delete non-existing device with id: {}", id);
-            throw new ResourceNotFoundException("Device not found with id: " + id);
-        } else if (isInUse(optionalEntity.get().getState())) {
-            logger.error("Attempted to delete device in IN_USE state with id: {}", id);
-            throw new BlockedResourceException("Cannot delete a device that is currently IN_USE");
+    public DeviceResponse deleteDevice(long id, Set<Long> expectedVersions) {
+        Optional<DeviceEntity> deletedDevice = deviceRepository.deleteIfNotInUse(id,
+                versionToMatch(id, expectedVersions));
+        if (deletedDevice.isEmpty()) {
+            throw rejectedMutation(id, expectedVersions, "Cannot delete a device that is currently IN_USE");
         }
-        deviceRepository.deleteById(id);
-        return deviceMapper.fromEntityToDeviceResponse(optionalEntity.get());
+        deviceCache.evict(id);
+        logger.info(SAMPLED, "Deleted device with id: {}", id);
+        return deviceMapper.fromEntityToDeviceResponse(deletedDevice.get());
     }
 
 
@@ -138,76 +254,375 @@ public class DeviceService {
      * Apply partial updates to a device and return updated DTO.
      *
      * Steps:
-     * - Load existing entity by id
-     * - Validate that name/brand are not changed when device is IN_USE
-     * - Apply partial changes and save
+     * - Resolve which of the expected versions, if given, the statement has to match
+     * - Update the provided fields with a single statement that only matches when name/brand
+     *   are not changed on an IN_USE device and, if given, the device still has the expected version;
+     *   a state change ends the lease of a leased device
+     * - Cache the updated device; when nothing was updated, tell a missing device from an outdated or blocked one
      *
      * @param id the device id
      * @param updateRequest partial update request
+     * @param expectedVersions optional versions of which the device must still have one
      * @return updated {@code DeviceResponse}
      * @throws ResourceNotFoundException when device not found
+     * @throws PreconditionFailedException when device version differs from the expected ones
      * @throws BlockedResourceException when forbidden fields are modified on IN_USE device
      * @throws DuplicatedDataException when name+brand duplicates an existing device
      */
-    public DeviceResponse partialUpdateDevice(long id, PartialUpdateDeviceRequest updateRequest) {
-        logger.info("Starting partial update for device with id: {}", id);
-        DeviceEntity existingDevice = deviceRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Device not found with id: " + id));
+    public DeviceResponse partialUpdateDevice(long id, PartialUpdateDeviceRequest updateRequest,
+                                              Set<Long> expectedVersions) {
+        Optional<DeviceEntity> savedDevice;
+        try {
+            savedDevice = deviceRepository.partialUpdateIfAllowed(id, updateRequest.name(), updateRequest.brand(),
+                    updateRequest.state(), versionToMatch(id, expectedVersions));
+        } catch (DataIntegrityViolationException e) {
+            logger.error("Data integrity violation while partially updating device: {}", e.getMessage());
+            throw new DuplicatedDataException("Device with the same name and brand already exists");
+        }
 
-        boolean inUse = isInUse(existingDevice.getState());
+        DeviceResponse response = savedDevice
+                .map(deviceMapper::fromEntityToDeviceResponse)
+                .orElseThrow(() -> rejectedMutation(id, expectedVersions,
+                        "Cannot update brand or name of a device that is currently IN_USE"));
+        deviceCache.put(response);
+        logger.info(SAMPLED, "Partially updated device with id: {}", id);
+        return response;
+    }
 
-        if (inUse && (updateRequest.brand() != null || updateRequest.name() != null)) {
-            throw new BlockedResourceException("Cannot update brand or name of a device that is currently IN_USE");
+    /**
+     * Move many devices to the same state with one set-based statement and report the outcome per device.
+     *
+     * Steps:
+     * - Lock the existing devices among the requested ids
+     * - Change the state of those not already in the target state and evict them from the cache
+     * - Report every requested id as updated, unchanged or not-found
+     *
+     * Like {@link #partialUpdateDevice}, a state-only change is allowed for devices that are IN_USE.
+     *
+     * @param request ids of the devices and their target state
+     * @return one {@code StateChangeResult} per requested id, ordered by id
+     * @throws InvalidInputPropertyException when more than {@value #MAX_BATCH_SIZE} ids are requested
+     */
+    public List<StateChangeResult> changeStates(BulkStateChangeRequest request) {
+        if (request.ids().size() > MAX_BATCH_SIZE) {
+            throw new InvalidInputPropertyException("At most " + MAX_BATCH_SIZE + " devices can be changed at once");
         }
 
-        try {
-            DeviceEntity savedDevice = deviceRepository.save(
-                    deviceMapper.partialUpdateRequestToEntity(updateRequest, existingDevice));
-            logger.info("Successfully completed partial update for device with id: {}", id);
+        Map<Long, Boolean> changed = deviceRepository.updateStates(request.ids(), request.state());
+        deviceCache.evictAll(changed.keySet());
+        logger.info("Changed state of {} of {} devices to {}",
+                changed.values().stream().filter(Boolean::booleanValue).count(), request.ids().size(), request.state());
 
-            return deviceMapper.fromEntityToDeviceResponse(savedDevice);
-        } catch (DataIntegrityViolationException e) {
-            logger.error("Data integrity violation while partially updating device: {}", e.getMessage());
-            throw new DuplicatedDataException("Device with the same name and brand already exists");
+        return request.ids().stream()
+                .sorted()
+                .map(id -> {
+                    Boolean updated = changed.get(id);
+                    if (updated == null) {
+                        return new StateChangeResult(id, BulkItemStatus.NOT_FOUND);
+                    }
+                    return new StateChangeResult(id, updated ? BulkItemStatus.UPDATED : BulkItemStatus.UNCHANGED);
+                })
+                .toList();
+    }
+
+    /**
+     * Lease an AVAILABLE device by moving it to IN_USE until {@code devices.leases.duration} from now.
+     *
+     * Steps:
+     * - Change the state and set the lease expiry with a single statement that only matches when the device
+     *   is AVAILABLE, so of concurrent leases of the same device exactly one succeeds
+     * - Cache the leased device; when nothing was updated, tell a missing device from an unavailable one
+     *
+     * @param id the device id
+     * @return leased {@code DeviceResponse}
+     * @throws ResourceNotFoundException when device not found
+     * @throws StateConflictException when device is not AVAILABLE
+     */
+    public DeviceResponse leaseDevice(long id) {
+        DeviceResponse response = deviceRepository.leaseIfAvailable(id, leaseDuration.toSeconds())
+                .map(deviceMapper::fromEntityToDeviceResponse)
+                .orElseThrow(() -> stateConflict(id, "Device with id: " + id + " is not available"));
+        deviceCache.put(response);
+        logger.info(SAMPLED, "Leased device with id: {}", id);
+        return response;
+    }
+
+    /**
+     * Release a leased device by moving it from IN_USE back to AVAILABLE.
+     *
+     * Steps:
+     * - Change the state and clear the lease expiry with a single statement that only matches when the device
+     *   is IN_USE
+     * - Cache the released device; when nothing was updated, tell a missing device from one not in use
+     *
+     * @param id the device id
+     * @return released {@code DeviceResponse}
+     * @throws ResourceNotFoundException when device not found
+     * @throws StateConflictException when device is not IN_USE
+     */
+    public DeviceResponse releaseDevice(long id) {
+        DeviceResponse response = deviceRepository.releaseIfInUse(id)
+                .map(deviceMapper::fromEntityToDeviceResponse)
+                .orElseThrow(() -> stateConflict(id, "Device with id: " + id + " is not in use"));
+        deviceCache.put(response);
+        logger.info(SAMPLED, "Released device with id: {}", id);
+        return response;
+    }
+
+    /**
+     * Lease up to {@code count} AVAILABLE devices, optionally of one brand, until {@code devices.leases.duration}
+     * from now.
+     *
+     * Steps:
+     * - Lock that many AVAILABLE devices, skipping those locked by concurrent leases instead of waiting for them,
+     *   and move them to IN_USE in the same statement
+     * - Cache the leased devices and return them ordered by id
+     *
+     * @param brand optional brand of the devices
+     * @param count maximum number of devices to lease, at most {@value #MAX_PAGE_SIZE}
+     * @return the leased devices, fewer than {@code count} (possibly none) when not enough are available
+     * @throws InvalidInputPropertyException when count is not between 1 and {@value #MAX_PAGE_SIZE}
+     */
+    public List<DeviceResponse> leaseDevices(String brand, int count) {
+        if (count < 1 || count > MAX_PAGE_SIZE) {
+            throw new InvalidInputPropertyException("count must be between 1 and " + MAX_PAGE_SIZE);
         }
+
+        List<DeviceEntity> leased = brand != null
+                ? deviceRepository.leaseAvailableByBrand(brand, count, leaseDuration.toSeconds())
+                : deviceRepository.leaseAvailable(count, leaseDuration.toSeconds());
+        List<DeviceResponse> devices = leased.stream()
+                .sorted(Comparator.comparingLong(DeviceEntity::getId))
+                .map(deviceMapper::fromEntityToDeviceResponse)
+                .toList();
+        devices.forEach(deviceCache::put);
+        logger.info(SAMPLED, "Leased {} of {} requested devices with brand: {}", devices.size(), count, brand);
+        return devices;
     }
 
     /**
-     * Retrieve a list of devices optionally filtered by brand and/or state.
+     * Release devices whose lease has expired.
      *
      * Steps:
-     * - Choose repository query based on provided filters
+     * - Move up to {@code limit} expired IN_USE devices, oldest leases first, back to AVAILABLE with one statement,
+     *   skipping those locked by concurrent transactions
+     * - Evict the released devices from the cache
+     *
+     * @param limit maximum number of devices to release
+     * @return the number of released devices
+     */
+    public int releaseExpiredLeases(int limit) {
+        List<Long> released = deviceRepository.releaseExpiredLeases(limit);
+        if (!released.isEmpty()) {
+            deviceCache.evictAll(released);
+            logger.info("Released {} devices with expired leases", released.size());
+        }
+        return released.size();
+    }
+
+    /**
+     * Retrieve a single keyset page of devices optionally filtered by brand and/or state.
+     *
+     * Steps:
+     * - Decode the cursor and resolve the page size
+     * - Choose repository query based on provided filters, fetching one extra row to detect the next page;
+     *   when only some fields are selected, read only their columns
      * - Map resulting entities to {@code DeviceResponse} list
      *
      * @param brand optional brand filter
      * @param state optional state filter
-     * @return list of {@code DeviceResponse} matching the provided filters
+     * @param after optional opaque cursor returned with the previous page
+     * @param limit optional page size, defaults to {@value #DEFAULT_PAGE_SIZE} and is capped at {@value #MAX_PAGE_SIZE}
+     * @param fields optional fields to read, all fields when {@code null}
+     * @return {@code DevicePage} with devices matching the provided filters and the cursor of the next page
+     * @throws InvalidInputPropertyException when the cursor or limit is invalid
      */
-    public List<DeviceResponse> getDevices(String brand, State state) {
+    public DevicePage getDevices(String brand, State state, String after, Integer limit, Set<DeviceField> fields) {
+        PageCursor cursor = PageCursor.decode(after);
+        if (cursor.lastScore() != null) {
+            throw new InvalidInputPropertyException("Invalid page cursor: " + after);
+        }
+        long afterId = cursor.lastId();
+        int pageSize = resolvePageSize(limit);
+        int fetchSize = pageSize + 1;
 
         List<DeviceEntity> entities;
-        if (brand != null && state != null) {
-            logger.info("Fetching devices with brand: {} and state: {}", brand, state);
-            entities = deviceRepository.findByBrandAndState(brand, state.getValue());
+        if (fields != null) {
+            entities = deviceRepository.findProjectedPage(fields, brand, state, afterId, fetchSize);
+        } else if (brand != null && state != null) {
+            entities = deviceRepository.findPageByBrandAndState(brand, state, afterId, fetchSize);
         } else if (brand != null) {
-            logger.info("Fetching devices with brand: {}", brand);
-           entities = deviceRepository.findByBrand(brand);
+            entities = deviceRepository.findPageByBrand(brand, afterId, fetchSize);
         } else if (state != null) {
-            logger.info("Fetching devices with state: {}", state);
-           entities = deviceRepository.findByState(state.getValue());
+            entities = deviceRepository.findPageByState(state, afterId, fetchSize);
         } else {
-            logger.info("Fetching all devices");
-            entities = deviceRepository.findAll();
+            entities = deviceRepository.findPage(afterId, fetchSize);
         }
 
-        logger.info("Found {} devices matching criteria", entities.size());
+        boolean hasNext = entities.size() > pageSize;
+        List<DeviceEntity> page = hasNext ? entities.subList(0, pageSize) : entities;
 
-        return entities.stream()
+        logger.info(SAMPLED, "Found {} devices with brand: {} and state: {} after id: {}",
+                page.size(), brand, state, afterId);
+
+        String nextCursor = hasNext ? new PageCursor(page.getLast().getId()).encode() : null;
+        return new DevicePage(page.stream()
                 .map(deviceMapper::fromEntityToDeviceResponse)
-                .toList();
+                .toList(), nextCursor);
+    }
+
+    /**
+     * Retrieve a single keyset page of devices whose name or brand contains the query, most relevant first,
+     * optionally filtered by brand and/or state.
+     *
+     * Steps:
+     * - Validate the query, decode the cursor and resolve the page size
+     * - Find the matches through the trigram indexes on name and brand, ordered by relevance and then id,
+     *   fetching one extra row to detect the next page; when only some fields are selected, read only their columns
+     * - Map resulting entities to {@code DeviceResponse} list; the next cursor holds relevance and id of the last one
+     *
+     * @param query text to find in device names and brands, ignoring case
+     * @param brand optional brand filter
+     * @param state optional state filter
+     * @param after optional opaque cursor returned with the previous page of the same search
+     * @param limit optional page size, defaults to {@value #DEFAULT_PAGE_SIZE} and is capped at {@value #MAX_PAGE_SIZE}
+     * @param fields optional fields to read, all fields when {@code null}
+     * @return {@code DevicePage} with the matching devices and the cursor of the next page
+     * @throws InvalidInputPropertyException when the query, cursor or limit is invalid
+     */
+    public DevicePage searchDevices(String query, String brand, State state, String after, Integer limit,
+                                    Set<DeviceField> fields) {
+        if (isBlank(query) || query.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidInputPropertyException("q must contain between 1 and " + MAX_QUERY_LENGTH + " characters");
+        }
+        PageCursor cursor = PageCursor.decode(after);
+        if (cursor.lastScore() == null && cursor.lastId() != PageCursor.START.lastId()) {
+            throw new InvalidInputPropertyException("Invalid page cursor: " + after);
+        }
+        int pageSize = resolvePageSize(limit);
+
+        List<DeviceSearchHit> hits = deviceRepository.searchPage(query.strip(), fields, brand, state,
+                cursor.lastScore(), cursor.lastId(), pageSize + 1);
+
+        boolean hasNext = hits.size() > pageSize;
+        List<DeviceSearchHit> page = hasNext ? hits.subList(0, pageSize) : hits;
+
+        logger.info(SAMPLED, "Found {} devices matching: {} with brand: {} and state: {}",
+                page.size(), query, brand, state);
+
+        String nextCursor = hasNext
+                ? new PageCursor(page.getLast().device().getId(), page.getLast().score()).encode()
+                : null;
+        return new DevicePage(page.stream()
+                .map(hit -> deviceMapper.fromEntityToDeviceResponse(hit.device()))
+                .toList(), nextCursor);
+    }
+
+    /**
+     * Stream every device ordered by id to the given consumer without materializing the table.
+     *
+     * Steps:
+     * - Open a read-only transaction so the driver can use a server-side cursor
+     * - Map each fetched entity to {@code DeviceResponse} and hand it to the consumer
+     *
+     * @param consumer receiver of each device, called in id order
+     */
+    @Transactional(readOnly = true)
+    public void exportDevices(Consumer<DeviceResponse> consumer) {
+        logger.info("Exporting all devices");
+        deviceRepository.forEachDevice(entity -> consumer.accept(deviceMapper.fromEntityToDeviceResponse(entity)));
+    }
+
+    /**
+     * Count devices per brand and state.
+     *
+     * Steps:
+     * - Return the in-memory counters if enabled and loaded
+     * - Otherwise return the counts cached within the last {@code devices.stats.time-to-live} if present
+     * - Otherwise count with a single aggregate query and cache the result
+     *
+     * @return one {@code DeviceCount} per brand and state that has at least one device, ordered by brand and state
+     */
+    public List<DeviceCount> getDeviceStats() {
+        if (deviceCounters.isEnabled()) {
+            Optional<List<DeviceCount>> counted = deviceCounters.snapshot();
+            if (counted.isPresent()) {
+                return counted.get();
+            }
+        }
+        return deviceStatsCache.get(() -> {
+            List<DeviceCount> counts = deviceRepository.countByBrandAndState();
+            logger.info(SAMPLED, "Counted devices in {} brand and state groups", counts.size());
+            return counts;
+        });
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new InvalidInputPropertyException("limit must be greater than 0");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * A conditional statement matches a single version, so when several are accepted the one the device has now
+     * is chosen. Should the device change in between, the statement matches no row and the change is rejected.
+     *
+     * @return the version the statement has to match, {@code null} when any version is accepted
+     */
+    private Long versionToMatch(long id, Set<Long> expectedVersions) {
+        if (expectedVersions == null) {
+            return null;
+        }
+        if (expectedVersions.size() > 1) {
+            Optional<Long> current = deviceRepository.findById(id)
+                    .map(DeviceEntity::getVersion)
+                    .filter(expectedVersions::contains);
+            if (current.isPresent()) {
+                return current.get();
+            }
+        }
+        return expectedVersions.iterator().next();
+    }
+
+    /**
+     * Explain why a conditional mutation matched no row: the device is missing, outdated or IN_USE.
+     * The cached copy is dropped as it may be the reason the client sent an outdated request.
+     */
+    private RuntimeException rejectedMutation(long id, Set<Long> expectedVersions, String blockedMessage) {
+        deviceCache.evict(id);
+        Optional<DeviceEntity> current = deviceRepository.findById(id);
+        RuntimeException rejection;
+        if (current.isEmpty()) {
+            rejection = new ResourceNotFoundException("Device not found with id: " + id);
+        } else if (expectedVersions != null && !expectedVersions.contains(current.get().getVersion())) {
+            rejection = new PreconditionFailedException("Device with id: " + id + " has been modified concurrently");
+        } else {
+            rejection = new BlockedResourceException(blockedMessage);
+        }
+        logger.warn("Rejected change of device with id: {}: {}", id, rejection.getMessage());
+        return rejection;
+    }
+
+    /**
+     * Explain why a conditional state transition matched no row: the device is missing or in another state.
+     */
+    private RuntimeException stateConflict(long id, String conflictMessage) {
+        deviceCache.evict(id);
+        RuntimeException rejection = deviceRepository.existsById(id)
+                ? new StateConflictException(conflictMessage)
+                : new ResourceNotFoundException("Device not found with id: " + id);
+        logger.warn("Rejected state transition of device with id: {}: {}", id, rejection.getMessage());
+        return rejection;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
-    private boolean isInUse(String state) {
-        return State.IN_USE.getValue().equals(state);
+    private record DeviceKey(String name, String brand) {
     }
 }
@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS devices (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    brand VARCHAR(50) NOT NULL,
+    state VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    UNIQUE (name, brand)
+);
+-- Databases created before migrations were introduced may lack the version column
+ALTER TABLE devices ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Tell the instances caching devices which rows changed. Delivered to listeners when the transaction commits.
+CREATE OR REPLACE FUNCTION notify_device_changed() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('device_changed', OLD.id::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS devices_changed ON devices;
+CREATE TRIGGER devices_changed AFTER UPDATE OR DELETE ON devices
+    FOR EACH ROW EXECUTE FUNCTION notify_device_changed();
@@ -0,0 +1,13 @@
+-- Indexes for the keyset pages of GET /devices, which filter by brand and/or state and order by id.
+-- The UNIQUE (name, brand) index leads with name and cannot serve these lookups.
+-- Built CONCURRENTLY so writes to a large devices table go on during the build; Flyway runs this migration outside
+-- a transaction. A build that fails leaves an INVALID index, which has to be dropped before migrating again.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS devices_brand_state_id_idx ON devices (brand, state, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS devices_state_id_idx ON devices (state, id);
+
+-- Pages filtered by brand only. Within a brand (brand, state, id) is ordered by state first, so those pages would
+-- read and sort all devices of the brand; (brand, id) returns them in page order and stops at the limit.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS devices_brand_id_idx ON devices (brand, id);
+
+-- Devices in use are a small share of the table and are looked up on their own
+CREATE INDEX CONCURRENTLY IF NOT EXISTS devices_in_use_idx ON devices (id) WHERE state = 'in-use';
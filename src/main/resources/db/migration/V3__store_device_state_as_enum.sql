@@ -0,0 +1,9 @@
+-- Store the state as a 4-byte enum instead of a variable-length string repeated in every row and index entry.
+-- Labels are the JSON values of State so existing rows and literals in queries keep working unchanged.
+CREATE TYPE device_state AS ENUM ('available', 'in-use', 'inactive');
+
+-- The partial index predicate compares against a string and has to be rebuilt for the new type.
+-- The other indexes on state are rebuilt by the column type change itself.
+DROP INDEX IF EXISTS devices_in_use_idx;
+ALTER TABLE devices ALTER COLUMN state TYPE device_state USING state::device_state;
+CREATE INDEX IF NOT EXISTS devices_in_use_idx ON devices (id) WHERE state = 'in-use';
@@ -0,0 +1,19 @@
+-- Describe every change in its notification, inserts included, so listeners can keep derived state such as the
+-- counts per brand and state up to date without reading the row:
+-- {"id": 1, "before": {"brand": "...", "state": "..."}, "after": {...}, "transactionId": 1234}, before is null for
+-- inserts and after is null for deletes. The id of the writing transaction tells listeners whether the change is
+-- already included in a count they read, by comparing it with the snapshot of that read.
+CREATE OR REPLACE FUNCTION notify_device_changed() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('device_changed', json_build_object(
+        'id', CASE WHEN TG_OP = 'INSERT' THEN NEW.id ELSE OLD.id END,
+        'before', CASE WHEN TG_OP <> 'INSERT' THEN json_build_object('brand', OLD.brand, 'state', OLD.state) END,
+        'after', CASE WHEN TG_OP <> 'DELETE' THEN json_build_object('brand', NEW.brand, 'state', NEW.state) END,
+        'transactionId', pg_current_xact_id()::text::bigint
+    )::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS devices_changed ON devices;
+CREATE TRIGGER devices_changed AFTER INSERT OR UPDATE OR DELETE ON devices
+    FOR EACH ROW EXECUTE FUNCTION notify_device_changed();
@@ -0,0 +1,27 @@
+-- Outbox of device changes to be relayed to other systems. Rows are written by a trigger, so every change is
+-- recorded in the transaction that makes it, and deleted by the relay once delivered.
+CREATE TABLE IF NOT EXISTS device_events (
+    id BIGSERIAL PRIMARY KEY,
+    device_id BIGINT NOT NULL,
+    type VARCHAR(10) NOT NULL,
+    old_device JSONB,
+    new_device JSONB,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE OR REPLACE FUNCTION record_device_event() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO device_events (device_id, type, new_device) VALUES (NEW.id, 'created', to_jsonb(NEW));
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO device_events (device_id, type, old_device, new_device)
+        VALUES (NEW.id, 'updated', to_jsonb(OLD), to_jsonb(NEW));
+    ELSE
+        INSERT INTO device_events (device_id, type, old_device) VALUES (OLD.id, 'deleted', to_jsonb(OLD));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS devices_outbox ON devices;
+CREATE TRIGGER devices_outbox AFTER INSERT OR UPDATE OR DELETE ON devices
+    FOR EACH ROW EXECUTE FUNCTION record_device_event();
@@ -0,0 +1,7 @@
+-- When the lease of an in-use device runs out; NULL for devices that are not leased. An absolute point in time
+-- compared with now(), so instances in different time zones agree on when a lease expires.
+ALTER TABLE devices ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMPTZ;
+
+-- Only leased devices are indexed, so finding the expired ones costs in proportion to the leases, not the table.
+CREATE INDEX IF NOT EXISTS devices_lease_expires_at_idx ON devices (lease_expires_at)
+    WHERE lease_expires_at IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Trigram indexes let GET /devices?q= find devices whose name or brand contains the query without scanning the table.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- GIN builds take much longer than B-tree ones, so they run CONCURRENTLY to keep devices writable meanwhile.
+-- This migration therefore runs outside a transaction (spring.flyway.mixed). A build that fails leaves an INVALID
+-- index, which has to be dropped before migrating again.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS devices_name_trgm_idx ON devices USING gin (name gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS devices_brand_trgm_idx ON devices USING gin (brand gin_trgm_ops);
@@ -4,5 +4,6 @@ public class TestUtil {
     public static final String DEVICE_NAME_1 = "Thermostat X100";
     public static final String DEVICE_BRAND_1 = "SmartHome";
     public static final String DEVICE_NAME_2 = "Lightbulb A19";
+    public static final String DEVICE_BRAND_2 = "BrightLight";
     public static final String UPDATED_DEVICE_NAME_1 = "Thermostat X200";
 }
@@ -0,0 +1,101 @@
+package com.example.devicesapi.cache;
+
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.State;
+import com.example.devicesapi.repository.DeviceCountSnapshot;
+import com.example.devicesapi.repository.DeviceRepository;
+import com.example.devicesapi.repository.TransactionSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DeviceCountersTest {
+    private static final String BRAND = "BrandA";
+    // transactions below 100 and 102 had committed when the counts were read, 101 was still running
+    private static final TransactionSnapshot SNAPSHOT = TransactionSnapshot.parse("100:103:101");
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    private DeviceCounters deviceCounters;
+
+    @BeforeEach
+    public void setUp() {
+        deviceCounters = new DeviceCounters(deviceRepository, true);
+    }
+
+    @Test
+    public void testCountsAreEmptyUntilLoaded() {
+        deviceCounters.onDeviceChange(new DeviceChange(1L, null, snapshot(State.AVAILABLE)));
+
+        assertEquals(Optional.empty(), deviceCounters.snapshot());
+    }
+
+    @Test
+    public void testCountsAreAdjustedByChanges() {
+        load(new DeviceCount(BRAND, State.AVAILABLE, 2), new DeviceCount(BRAND, State.IN_USE, 1));
+
+        deviceCounters.onDeviceChange(new DeviceChange(1L, null, snapshot(State.AVAILABLE)));
+        deviceCounters.onDeviceChange(new DeviceChange(2L, snapshot(State.IN_USE), snapshot(State.INACTIVE)));
+        deviceCounters.onDeviceChange(new DeviceChange(3L, snapshot(State.AVAILABLE), null));
+
+        assertEquals(Optional.of(List.of(
+                new DeviceCount(BRAND, State.AVAILABLE, 2),
+                new DeviceCount(BRAND, State.INACTIVE, 1))), deviceCounters.snapshot());
+    }
+
+    @Test
+    public void testChangesAlreadyCountedAreSkipped() {
+        load(new DeviceCount(BRAND, State.AVAILABLE, 2));
+
+        deviceCounters.onDeviceChange(new DeviceChange(1L, null, snapshot(State.AVAILABLE), 99L));
+        deviceCounters.onDeviceChange(new DeviceChange(2L, null, snapshot(State.AVAILABLE), 102L));
+        deviceCounters.onDeviceChange(new DeviceChange(3L, null, snapshot(State.AVAILABLE), 101L));
+        deviceCounters.onDeviceChange(new DeviceChange(4L, null, snapshot(State.AVAILABLE), 103L));
+
+        assertEquals(Optional.of(List.of(new DeviceCount(BRAND, State.AVAILABLE, 4))), deviceCounters.snapshot());
+    }
+
+    @Test
+    public void testChangesNotifiedDuringReloadAreAppliedToReloadedCounts() {
+        load(new DeviceCount(BRAND, State.AVAILABLE, 2));
+        when(deviceRepository.countByBrandAndStateWithSnapshot()).thenAnswer(invocation -> {
+            deviceCounters.onDeviceChange(new DeviceChange(1L, null, snapshot(State.AVAILABLE), 99L));
+            deviceCounters.onDeviceChange(new DeviceChange(2L, null, snapshot(State.AVAILABLE), 103L));
+            return new DeviceCountSnapshot(List.of(new DeviceCount(BRAND, State.AVAILABLE, 3)), SNAPSHOT);
+        });
+
+        deviceCounters.reconcile();
+
+        assertEquals(Optional.of(List.of(new DeviceCount(BRAND, State.AVAILABLE, 4))), deviceCounters.snapshot());
+    }
+
+    @Test
+    public void testReconcileReplacesCounts() {
+        load(new DeviceCount(BRAND, State.AVAILABLE, 2));
+        deviceCounters.onDeviceChange(new DeviceChange(1L, null, snapshot(State.AVAILABLE)));
+
+        load(new DeviceCount(BRAND, State.IN_USE, 5));
+
+        assertEquals(Optional.of(List.of(new DeviceCount(BRAND, State.IN_USE, 5))), deviceCounters.snapshot());
+    }
+
+    private void load(DeviceCount... counts) {
+        when(deviceRepository.countByBrandAndStateWithSnapshot())
+                .thenReturn(new DeviceCountSnapshot(List.of(counts), SNAPSHOT));
+        deviceCounters.onDeviceChangesMissed();
+    }
+
+    private static DeviceChange.Snapshot snapshot(State state) {
+        return new DeviceChange.Snapshot(BRAND, state);
+    }
+}
@@ -2,33 +2,58 @@ package com.example.devicesapi.controller;
 
 import com.example.devicesapi.exception.BlockedResourceException;
 import com.example.devicesapi.exception.DuplicatedDataException;
+import com.example.devicesapi.exception.InvalidInputPropertyException;
+import com.example.devicesapi.exception.PreconditionFailedException;
 import com.example.devicesapi.exception.ResourceNotFoundException;
+import com.example.devicesapi.exception.StateConflictException;
+import com.example.devicesapi.feed.DeviceChangeFeed;
+import com.example.devicesapi.model.BatchCreateResult;
+import com.example.devicesapi.model.BulkItemStatus;
+import com.example.devicesapi.model.BulkStateChangeRequest;
 import com.example.devicesapi.model.CreateDeviceRequest;
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.DevicePage;
 import com.example.devicesapi.model.DeviceResponse;
 import com.example.devicesapi.model.State;
+import com.example.devicesapi.model.StateChangeResult;
 import com.example.devicesapi.service.DeviceService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(DeviceController.class)
@@ -39,6 +64,9 @@ public class DeviceControllerTest {
     @MockitoBean
     private DeviceService deviceService;
 
+    @MockitoBean
+    private DeviceChangeFeed deviceChangeFeed;
+
     @Test
     public void testCreateDeviceWithSuccessfulResponse() throws Exception {
         String requestJson = """
@@ -55,7 +83,17 @@ public class DeviceControllerTest {
                 .andExpect(jsonPath("$.id").value(deviceResponse.id()))
                 .andExpect(jsonPath("$.name").value(deviceResponse.name()))
                 .andExpect(jsonPath("$.brand").value(deviceResponse.brand()))
-                .andExpect(jsonPath("$.state").value(deviceResponse.state()));;
+                .andExpect(jsonPath("$.state").value(deviceResponse.state().getValue()));;
+    }
+
+    @Test
+    public void testCreateDeviceWithTooLongName() throws Exception {
+        String requestJson = """
+                {"name":"%s","brand":"Brand A"}""".formatted("x".repeat(CreateDeviceRequest.MAX_LENGTH + 1));
+        mockMvc.perform(post("/devices").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Validation failed"))
+                .andExpect(jsonPath("$.details", containsString("name:")));
     }
 
     @Test
@@ -83,6 +121,25 @@ public class DeviceControllerTest {
                 .andExpect(jsonPath("$.details").value(errorMessage));
     }
 
+    @Test
+    public void testCreateDevicesInBatch() throws Exception {
+        String requestJson = """
+                [{"name":"Device A","brand":"newBrand"},{"name":"Device A","brand":"newBrand"}]
+                """;
+        DeviceResponse deviceResponse = getDeviceResponse(State.INACTIVE);
+
+        when(deviceService.createDevices(any()))
+                .thenReturn(List.of(BatchCreateResult.created(0, deviceResponse), BatchCreateResult.duplicate(1)));
+
+        mockMvc.perform(post("/devices/batch").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("created"))
+                .andExpect(jsonPath("$[0].device.id").value(deviceResponse.id()))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("duplicate"));
+    }
+
     @Test
     public void testGetDeviceById() throws Exception {
         DeviceResponse deviceResponse = getDeviceResponse(State.IN_USE);
@@ -95,7 +152,41 @@ public class DeviceControllerTest {
                 .andExpect(jsonPath("$.id").value(deviceResponse.id()))
                 .andExpect(jsonPath("$.name").value(deviceResponse.name()))
                 .andExpect(jsonPath("$.brand").value(deviceResponse.brand()))
-                .andExpect(jsonPath("$.state").value(deviceResponse.state()));
+                .andExpect(jsonPath("$.state").value(deviceResponse.state().getValue()))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    public void testGetDeviceByIdWithSelectedFields() throws Exception {
+        when(deviceService.getDeviceById(1L)).thenReturn(getDeviceResponse(State.IN_USE));
+
+        mockMvc.perform(get("/devices/1?fields=state"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.state").value("in-use"))
+                .andExpect(jsonPath("$.name").doesNotExist())
+                .andExpect(jsonPath("$.brand").doesNotExist())
+                .andExpect(jsonPath("$.createdAt").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1;id+state\""));
+    }
+
+    @Test
+    public void testGetDeviceByIdWithSelectedFieldsDoesNotMatchETagOfFullDevice() throws Exception {
+        when(deviceService.getDeviceById(1L)).thenReturn(getDeviceResponse(State.IN_USE));
+
+        mockMvc.perform(get("/devices/1?fields=state").header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("in-use"));
+        mockMvc.perform(get("/devices/1?fields=state,id").header(HttpHeaders.IF_NONE_MATCH, "\"1;id+state\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testGetDevicesListWithUnknownField() throws Exception {
+        mockMvc.perform(get("/devices?fields=id,serial"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").value("Unknown field: serial"));
     }
 
     @Test
@@ -112,35 +203,150 @@ public class DeviceControllerTest {
     @Test
     public void testGetDevicesListWithAllPossibleRequestParams() throws Exception {
         DeviceResponse deviceResponse = getDeviceResponse(State.AVAILABLE);
-        when(deviceService.getDevices(anyString(), any(State.class))).thenReturn(List.of(deviceResponse));
+        when(deviceService.getDevices(anyString(), any(State.class), anyString(), any(Integer.class), any()))
+                .thenReturn(new DevicePage(List.of(deviceResponse), null));
 
-        mockMvc.perform(get("/devices?brand=newBrand&state=available"))
+        mockMvc.perform(get("/devices?brand=newBrand&state=available&after=MQ&limit=10"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK))
                 .andExpect(jsonPath("$[0].id").value(deviceResponse.id()))
                 .andExpect(jsonPath("$[0].name").value(deviceResponse.name()))
                 .andExpect(jsonPath("$[0].brand").value(deviceResponse.brand()))
-                .andExpect(jsonPath("$[0].state").value(deviceResponse.state()));
+                .andExpect(jsonPath("$[0].state").value(deviceResponse.state().getValue()));
+    }
+
+    @Test
+    public void testGetDeviceStats() throws Exception {
+        when(deviceService.getDeviceStats()).thenReturn(List.of(new DeviceCount("Brand A", State.IN_USE, 42)));
+
+        mockMvc.perform(get("/devices/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].brand").value("Brand A"))
+                .andExpect(jsonPath("$[0].state").value("in-use"))
+                .andExpect(jsonPath("$[0].count").value(42));
+    }
+
+    @Test
+    public void testGetDevicesListAsCbor() throws Exception {
+        DeviceResponse deviceResponse = getDeviceResponse(State.AVAILABLE);
+        when(deviceService.getDevices(any(), any(), any(), any(), any()))
+                .thenReturn(new DevicePage(List.of(deviceResponse), null));
+
+        MvcResult result = mockMvc.perform(get("/devices").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        List<DeviceResponse> devices = CBORMapper.builder().build().readValue(
+                result.getResponse().getContentAsByteArray(), new TypeReference<List<DeviceResponse>>() {
+                });
+        assertEquals(deviceResponse.id(), devices.getFirst().id());
+        assertEquals(deviceResponse.state(), devices.getFirst().state());
+    }
+
+    @Test
+    public void testGetDevicesListWithNextPage() throws Exception {
+        DeviceResponse deviceResponse = getDeviceResponse(State.AVAILABLE);
+        when(deviceService.getDevices(any(), any(), any(), any(), any()))
+                .thenReturn(new DevicePage(List.of(deviceResponse), "MQ"));
+
+        mockMvc.perform(get("/devices?brand=newBrand&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK,
+                        "<http://localhost/devices?brand=newBrand&limit=1&after=MQ>; rel=\"next\""))
+                .andExpect(jsonPath("$[0].id").value(deviceResponse.id()));
+    }
+
+    @Test
+    public void testSearchDevicesList() throws Exception {
+        DeviceResponse deviceResponse = getDeviceResponse(State.AVAILABLE);
+        when(deviceService.searchDevices(eq("dev"), eq("newBrand"), any(), any(), any(), any()))
+                .thenReturn(new DevicePage(List.of(deviceResponse), "MC41OjE"));
+
+        mockMvc.perform(get("/devices?q=dev&brand=newBrand&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK,
+                        "<http://localhost/devices?q=dev&brand=newBrand&limit=1&after=MC41OjE>; rel=\"next\""))
+                .andExpect(jsonPath("$[0].id").value(deviceResponse.id()));
+    }
+
+    @Test
+    public void testGetDevicesListWithInvalidCursor() throws Exception {
+        when(deviceService.getDevices(any(), any(), any(), any(), any()))
+                .thenThrow(new InvalidInputPropertyException("Invalid page cursor: ???"));
+
+        mockMvc.perform(get("/devices?after=???"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Validation failed"));
+    }
+
+    @Test
+    public void testStreamChangesSubscribesToFeed() throws Exception {
+        mockMvc.perform(get("/devices/changes?brand=newBrand&state=available")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", "42"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(deviceChangeFeed).subscribe(any(SseEmitter.class), eq("newBrand"), eq(State.AVAILABLE), eq("42"));
+    }
+
+    @Test
+    public void testExportDevicesStreamsNdjson() throws Exception {
+        DeviceResponse first = getDeviceResponse(State.AVAILABLE);
+        DeviceResponse second = getDeviceResponse(State.IN_USE);
+        doAnswer(invocation -> {
+            Consumer<DeviceResponse> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(deviceService).exportDevices(any());
+
+        MvcResult result = mockMvc.perform(get("/devices/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"state\":\"available\""));
+        assertTrue(lines[1].contains("\"state\":\"in-use\""));
+    }
+
+    @Test
+    public void testGetDeviceByIdWhenETagMatches() throws Exception {
+        when(deviceService.getDeviceById(any(Long.class)))
+                .thenReturn(getDeviceResponse(State.IN_USE));
+
+        mockMvc.perform(get("/devices/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\", \"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(content().string(""));
     }
 
     @Test
     public void testDeleteDeviceById() throws Exception {
         DeviceResponse deviceResponse = getDeviceResponse(State.INACTIVE);
-        when(deviceService.deleteDevice(any(Long.class))).thenReturn(deviceResponse);
+        when(deviceService.deleteDevice(any(Long.class), any())).thenReturn(deviceResponse);
 
         mockMvc.perform(delete("/devices/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(deviceResponse.id()))
                 .andExpect(jsonPath("$.name").value(deviceResponse.name()))
                 .andExpect(jsonPath("$.brand").value(deviceResponse.brand()))
-                .andExpect(jsonPath("$.state").value(deviceResponse.state()));;
+                .andExpect(jsonPath("$.state").value(deviceResponse.state().getValue()));;
     }
 
     @Test
     public void testDeleteDeviceByIdWhenDeviceDoesNotExist() throws Exception {
         String errorMessage = "Device not found with id: 1";
         doThrow(new ResourceNotFoundException(errorMessage))
-                .when(deviceService).deleteDevice(any(Long.class));
+                .when(deviceService).deleteDevice(any(Long.class), any());
 
         mockMvc.perform(delete("/devices/1"))
                 .andExpect(status().isNotFound())
@@ -152,7 +358,7 @@ public class DeviceControllerTest {
     public void testDeleteDeviceByIdWhenDeviceIsInUse() throws Exception {
         String errorMessage = "Cannot delete a device that is currently IN_USE";
         doThrow(new BlockedResourceException(errorMessage))
-                .when(deviceService).deleteDevice(any(Long.class));
+                .when(deviceService).deleteDevice(any(Long.class), any());
 
         mockMvc.perform(delete("/devices/1"))
                 .andExpect(status().isLocked())
@@ -166,20 +372,60 @@ public class DeviceControllerTest {
                 {"name":"Updated Device","brand":"Updated Brand","state":"in-use"}""";
 
         DeviceResponse deviceResponse = getDeviceResponse(State.IN_USE);
-        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class)))
+        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class), any()))
                 .thenReturn(deviceResponse);
 
         mockMvc.perform(put("/devices/1").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    public void testUpdateDeviceWhenVersionDiffers() throws Exception {
+        String requestJson = """
+                {"name":"Updated Device","brand":"Updated Brand","state":"in-use"}""";
+        String errorMessage = "Device with id: 1 has been modified concurrently";
+
+        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class), eq(Set.of(3L))))
+                .thenThrow(new PreconditionFailedException(errorMessage));
+
+        mockMvc.perform(put("/devices/1").header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Precondition failed"))
+                .andExpect(jsonPath("$.details").value(errorMessage));
+    }
+
+    @Test
+    public void testUpdateDeviceWithSeveralIfMatchTags() throws Exception {
+        String requestJson = """
+                {"name":"Updated Device","brand":"Updated Brand","state":"inactive"}""";
+
+        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class), eq(Set.of(2L, 3L))))
+                .thenReturn(getDeviceResponse(State.INACTIVE));
+
+        mockMvc.perform(put("/devices/1").header(HttpHeaders.IF_MATCH, "W/\"1\", \"2\", \"3;id+state\", \"3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(requestJson))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testUpdateDeviceWithMalformedIfMatch() throws Exception {
+        String requestJson = """
+                {"name":"Updated Device","brand":"Updated Brand","state":"in-use"}""";
+
+        mockMvc.perform(put("/devices/1").header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     public void testUpdateDeviceWhenDeviceDoesNotExist() throws Exception {
         String requestJson = """
                 {"name":"Updated Device","brand":"Updated Brand","state":"in-use"}""";
         String errorMessage = "Device not found with id: 1";
 
-        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class)))
+        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class), any()))
                 .thenThrow(new ResourceNotFoundException(errorMessage));
 
         mockMvc.perform(put("/devices/1").contentType(MediaType.APPLICATION_JSON).content(requestJson))
@@ -194,7 +440,7 @@ public class DeviceControllerTest {
                 {"name":"Updated Device","brand":"Updated Brand","state":"in-use"}""";
         String errorMessage = "Cannot update a device that is currently IN_USE";
 
-        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class)))
+        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class), any()))
                 .thenThrow(new BlockedResourceException(errorMessage));
 
         mockMvc.perform(put("/devices/1").contentType(MediaType.APPLICATION_JSON).content(requestJson))
@@ -209,7 +455,7 @@ public class DeviceControllerTest {
                 {"name":"Updated Device","brand":"Updated Brand","state":"in-use"}""";
         String errorMessage = "Device with the same name and brand already exists";
 
-        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class)))
+        when(deviceService.updateDevice(any(Long.class), any(CreateDeviceRequest.class), any()))
                 .thenThrow(new DuplicatedDataException(errorMessage));
 
         mockMvc.perform(put("/devices/1").contentType(MediaType.APPLICATION_JSON).content(requestJson))
@@ -234,7 +480,7 @@ public class DeviceControllerTest {
                 {"state":"inactive"}""";
 
         DeviceResponse deviceResponse = getDeviceResponse(State.INACTIVE);
-        when(deviceService.partialUpdateDevice(any(Long.class), any()))
+        when(deviceService.partialUpdateDevice(any(Long.class), any(), any()))
                 .thenReturn(deviceResponse);
 
         mockMvc.perform(patch("/devices/1").contentType(MediaType.APPLICATION_JSON).content(requestJson))
@@ -258,7 +504,7 @@ public class DeviceControllerTest {
                 {"state":"inactive"}""";
         String errorMessage = "Device not found with id: 1";
 
-        when(deviceService.partialUpdateDevice(any(Long.class), any()))
+        when(deviceService.partialUpdateDevice(any(Long.class), any(), any()))
                 .thenThrow(new ResourceNotFoundException(errorMessage));
 
         mockMvc.perform(patch("/devices/1").contentType(MediaType.APPLICATION_JSON).content(requestJson))
@@ -267,12 +513,90 @@ public class DeviceControllerTest {
                 .andExpect(jsonPath("$.details").value(errorMessage));
     }
 
+    @Test
+    public void testChangeStates() throws Exception {
+        String requestJson = """
+                {"ids":[1,2],"state":"in-use"}""";
+
+        when(deviceService.changeStates(any(BulkStateChangeRequest.class))).thenReturn(List.of(
+                new StateChangeResult(1L, BulkItemStatus.UPDATED),
+                new StateChangeResult(2L, BulkItemStatus.NOT_FOUND)));
+
+        mockMvc.perform(patch("/devices/state").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].status").value("updated"))
+                .andExpect(jsonPath("$[1].id").value(2))
+                .andExpect(jsonPath("$[1].status").value("not-found"));
+    }
+
+    @Test
+    public void testChangeStatesWithNullId() throws Exception {
+        String requestJson = """
+                {"ids":[null],"state":"available"}""";
+
+        mockMvc.perform(patch("/devices/state").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Validation failed"))
+                .andExpect(jsonPath("$.details", containsString("ids")));
+    }
+
+    @Test
+    public void testChangeStatesWithoutIds() throws Exception {
+        String requestJson = """
+                {"ids":[],"state":"in-use"}""";
+
+        mockMvc.perform(patch("/devices/state").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Validation failed"))
+                .andExpect(jsonPath("$.details", containsString("ids:")));
+    }
+
+    @Test
+    public void testLeaseDevice() throws Exception {
+        when(deviceService.leaseDevice(1L)).thenReturn(getDeviceResponse(State.IN_USE));
+
+        mockMvc.perform(post("/devices/1/lease"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("in-use"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    public void testLeaseDeviceWhenNotAvailable() throws Exception {
+        when(deviceService.leaseDevice(1L)).thenThrow(new StateConflictException("Device with id: 1 is not available"));
+
+        mockMvc.perform(post("/devices/1/lease"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Conflicting device state"));
+    }
+
+    @Test
+    public void testReleaseDevice() throws Exception {
+        when(deviceService.releaseDevice(1L)).thenReturn(getDeviceResponse(State.AVAILABLE));
+
+        mockMvc.perform(post("/devices/1/release"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("available"));
+    }
+
+    @Test
+    public void testLeaseDevices() throws Exception {
+        when(deviceService.leaseDevices("Brand A", 2)).thenReturn(List.of(getDeviceResponse(State.IN_USE)));
+
+        mockMvc.perform(post("/devices/lease").param("brand", "Brand A").param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].state").value("in-use"));
+    }
+
     private DeviceResponse getDeviceResponse(State state) {
         return new DeviceResponse(
                 1L,
                 "Device A",
                 "Brand A",
-                state.getValue(),
-                OffsetDateTime.now());
+                state,
+                OffsetDateTime.now(),
+                1L);
     }
 }
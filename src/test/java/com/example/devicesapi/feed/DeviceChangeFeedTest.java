@@ -0,0 +1,138 @@
+package com.example.devicesapi.feed;
+
+import com.example.devicesapi.cache.DeviceChange;
+import com.example.devicesapi.model.DeviceChangeEvent;
+import com.example.devicesapi.model.DeviceChangeType;
+import com.example.devicesapi.model.State;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeviceChangeFeedTest {
+    private static final String BRAND = "BrandA";
+
+    private final DeviceChangeFeed feed = new DeviceChangeFeed(3, 10, Runnable::run);
+
+    @Test
+    public void testSubscriberReceivesMatchingChanges() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, BRAND, State.AVAILABLE, null);
+
+        feed.onDeviceChange(new DeviceChange(1L, null, device(BRAND, State.AVAILABLE)));
+        feed.onDeviceChange(new DeviceChange(2L, null, device("BrandB", State.AVAILABLE)));
+        feed.onDeviceChange(new DeviceChange(1L, device(BRAND, State.AVAILABLE), device(BRAND, State.IN_USE)));
+        feed.onDeviceChange(new DeviceChange(3L, null, device(BRAND, State.INACTIVE)));
+
+        assertEquals(List.of(
+                new DeviceChangeEvent(1L, DeviceChangeType.CREATED, BRAND, State.AVAILABLE),
+                new DeviceChangeEvent(1L, DeviceChangeType.UPDATED, BRAND, State.IN_USE)), emitter.events());
+    }
+
+    @Test
+    public void testResumeReplaysBufferedChanges() {
+        RecordingEmitter first = new RecordingEmitter();
+        feed.subscribe(first, null, null, null);
+        feed.onDeviceChange(new DeviceChange(1L, null, device(BRAND, State.AVAILABLE)));
+        feed.onDeviceChange(new DeviceChange(2L, null, device(BRAND, State.AVAILABLE)));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, null, null, first.ids().getFirst());
+        feed.onDeviceChange(new DeviceChange(2L, device(BRAND, State.AVAILABLE), null));
+
+        assertEquals(List.of(
+                new DeviceChangeEvent(2L, DeviceChangeType.CREATED, BRAND, State.AVAILABLE),
+                new DeviceChangeEvent(2L, DeviceChangeType.DELETED, BRAND, State.AVAILABLE)), emitter.events());
+    }
+
+    @Test
+    public void testResumeBeyondBufferRequestsResync() {
+        RecordingEmitter first = new RecordingEmitter();
+        feed.subscribe(first, null, null, null);
+        for (long id = 1; id <= 5; id++) {
+            feed.onDeviceChange(new DeviceChange(id, null, device(BRAND, State.AVAILABLE)));
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, null, null, first.ids().getFirst());
+
+        assertTrue(emitter.names().contains("resync"));
+        assertTrue(emitter.events().isEmpty());
+    }
+
+    @Test
+    public void testResumeWithMoreMissedChangesThanMaxPendingRequestsResync() {
+        DeviceChangeFeed feed = new DeviceChangeFeed(100, 3, Runnable::run);
+        RecordingEmitter first = new RecordingEmitter();
+        feed.subscribe(first, null, null, null);
+        for (long id = 1; id <= 5; id++) {
+            feed.onDeviceChange(new DeviceChange(id, null, device(BRAND, State.AVAILABLE)));
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, null, null, first.ids().getFirst());
+        feed.onDeviceChange(new DeviceChange(6L, null, device(BRAND, State.AVAILABLE)));
+
+        assertEquals(List.of("resync", "created"), emitter.names());
+        assertEquals(List.of(new DeviceChangeEvent(6L, DeviceChangeType.CREATED, BRAND, State.AVAILABLE)),
+                emitter.events());
+    }
+
+    @Test
+    public void testResumeWithIdOfAnotherInstanceRequestsResync() {
+        DeviceChangeFeed other = new DeviceChangeFeed(3, 10, Runnable::run);
+        RecordingEmitter otherEmitter = new RecordingEmitter();
+        other.subscribe(otherEmitter, null, null, null);
+        other.onDeviceChange(new DeviceChange(1L, null, device(BRAND, State.AVAILABLE)));
+        feed.onDeviceChange(new DeviceChange(1L, null, device(BRAND, State.AVAILABLE)));
+        feed.onDeviceChange(new DeviceChange(2L, null, device(BRAND, State.AVAILABLE)));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, null, null, otherEmitter.ids().getFirst());
+
+        assertEquals(List.of("resync"), emitter.names());
+        assertTrue(emitter.events().isEmpty());
+    }
+
+    private static DeviceChange.Snapshot device(String brand, State state) {
+        return new DeviceChange.Snapshot(brand, state);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Object> sent = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().forEach(data -> sent.add(data.getData()));
+        }
+
+        List<DeviceChangeEvent> events() {
+            return sent.stream()
+                    .filter(DeviceChangeEvent.class::isInstance)
+                    .map(DeviceChangeEvent.class::cast)
+                    .toList();
+        }
+
+        List<String> names() {
+            return fields("event:");
+        }
+
+        List<String> ids() {
+            return fields("id:");
+        }
+
+        private List<String> fields(String prefix) {
+            return sent.stream()
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .flatMap(String::lines)
+                    .filter(line -> line.startsWith(prefix))
+                    .map(line -> line.substring(prefix.length()))
+                    .toList();
+        }
+    }
+}
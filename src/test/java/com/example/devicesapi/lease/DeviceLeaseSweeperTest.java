@@ -0,0 +1,79 @@
+package com.example.devicesapi.lease;
+
+import com.example.devicesapi.cache.DeviceCache;
+import com.example.devicesapi.cache.DeviceCounters;
+import com.example.devicesapi.cache.DeviceStatsCache;
+import com.example.devicesapi.mapper.DeviceMapper;
+import com.example.devicesapi.model.DeviceResponse;
+import com.example.devicesapi.model.State;
+import com.example.devicesapi.repository.DeviceRepository;
+import com.example.devicesapi.service.DeviceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DeviceLeaseSweeperTest {
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private DeviceRepository deviceRepository;
+    @Mock
+    private DeviceCounters deviceCounters;
+
+    private final DeviceCache deviceCache = new DeviceCache(100, Duration.ofMinutes(1));
+    private SimpleMeterRegistry meterRegistry;
+    private DeviceLeaseSweeper sweeper;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        DeviceService deviceService = new DeviceService(deviceRepository, new DeviceMapper(), deviceCache,
+                new DeviceStatsCache(Duration.ZERO), deviceCounters, Duration.ofMinutes(15));
+        sweeper = new DeviceLeaseSweeper(deviceService, meterRegistry, BATCH_SIZE);
+    }
+
+    @Test
+    public void testSweepEvictsReleasedDevicesAndLeavesUnexpiredLeasesAlone() {
+        deviceCache.put(leased(1L));
+        deviceCache.put(leased(2L));
+        DeviceResponse stillLeased = leased(3L);
+        deviceCache.put(stillLeased);
+        when(deviceRepository.releaseExpiredLeases(BATCH_SIZE)).thenReturn(List.of(1L, 2L), List.of());
+
+        sweeper.sweep();
+
+        assertNull(deviceCache.get(1L, id -> null));
+        assertNull(deviceCache.get(2L, id -> null));
+        assertEquals(stillLeased, deviceCache.get(3L, id -> null));
+        verify(deviceRepository, times(2)).releaseExpiredLeases(BATCH_SIZE);
+        verifyNoMoreInteractions(deviceRepository);
+    }
+
+    @Test
+    public void testReleasedDevicesAreCountedAsReclaimed() {
+        when(deviceRepository.releaseExpiredLeases(BATCH_SIZE)).thenReturn(List.of(1L, 2L), List.of(3L));
+
+        sweeper.sweep();
+
+        assertEquals(3, meterRegistry.get(DeviceLeaseSweeper.RECLAIMED_COUNTER).counter().count());
+    }
+
+    private static DeviceResponse leased(long id) {
+        return new DeviceResponse(id, "Device " + id, "BrandA", State.IN_USE, OffsetDateTime.now(), 1L);
+    }
+}
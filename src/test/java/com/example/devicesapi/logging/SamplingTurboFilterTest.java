@@ -0,0 +1,58 @@
+package com.example.devicesapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SamplingTurboFilterTest {
+    private SamplingTurboFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new SamplingTurboFilter();
+        filter.setRate(0);
+        filter.start();
+    }
+
+    @Test
+    public void testSampledInfoIsDroppedAtRateZero() {
+        assertEquals(FilterReply.DENY, decide(LogSampling.SAMPLED, Level.INFO));
+        assertEquals(FilterReply.DENY, decide(LogSampling.SAMPLED, Level.DEBUG));
+    }
+
+    @Test
+    public void testSampledWarningsAndErrorsAreNeverDropped() {
+        assertEquals(FilterReply.NEUTRAL, decide(LogSampling.SAMPLED, Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(LogSampling.SAMPLED, Level.ERROR));
+    }
+
+    @Test
+    public void testUnmarkedEventsAreNeverDropped() {
+        assertEquals(FilterReply.NEUTRAL, decide(null, Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(MarkerFactory.getMarker("AUDIT"), Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(null, Level.WARN));
+    }
+
+    @Test
+    public void testSampledInfoIsKeptAtRateOne() {
+        filter.setRate(1);
+
+        assertEquals(FilterReply.NEUTRAL, decide(LogSampling.SAMPLED, Level.INFO));
+    }
+
+    @Test
+    public void testRateOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> filter.setRate(1.5));
+        assertThrows(IllegalArgumentException.class, () -> filter.setRate(-0.1));
+    }
+
+    private FilterReply decide(Marker marker, Level level) {
+        return filter.decide(marker, null, level, "Found {} devices", new Object[]{1}, null);
+    }
+}
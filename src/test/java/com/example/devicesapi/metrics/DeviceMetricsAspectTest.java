@@ -0,0 +1,76 @@
+package com.example.devicesapi.metrics;
+
+import com.example.devicesapi.cache.DeviceCache;
+import com.example.devicesapi.cache.DeviceCounters;
+import com.example.devicesapi.cache.DeviceStatsCache;
+import com.example.devicesapi.entity.DeviceEntity;
+import com.example.devicesapi.exception.ResourceNotFoundException;
+import com.example.devicesapi.mapper.DeviceMapper;
+import com.example.devicesapi.model.State;
+import com.example.devicesapi.repository.DeviceRepository;
+import com.example.devicesapi.service.DeviceService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DeviceMetricsAspectTest {
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DeviceService deviceService;
+
+    @BeforeEach
+    public void setUp() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new DeviceService(deviceRepository,
+                new DeviceMapper(), new DeviceCache(100, Duration.ofMinutes(1)), new DeviceStatsCache(Duration.ZERO),
+                new DeviceCounters(deviceRepository, false), Duration.ofMinutes(15)));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new DeviceMetricsAspect(meterRegistry));
+        deviceService = proxyFactory.getProxy();
+    }
+
+    @Test
+    public void testGetDevicesRecordsTimerAndPageSize() {
+        when(deviceRepository.findPage(0, 101)).thenReturn(List.of(
+                new DeviceEntity(1L, "Device1", "BrandA", State.AVAILABLE, Instant.now(), 0L),
+                new DeviceEntity(2L, "Device2", "BrandA", State.IN_USE, Instant.now(), 0L)));
+
+        deviceService.getDevices(null, null, null, null, null);
+
+        assertNotNull(meterRegistry.find(DeviceMetricsAspect.SERVICE_TIMER)
+                .tags("operation", "getDevices", "outcome", "ok")
+                .timer());
+        DistributionSummary pageSize = meterRegistry.get(DeviceMetricsAspect.PAGE_SIZE_SUMMARY).summary();
+        assertEquals(1, pageSize.count());
+        assertEquals(2, pageSize.totalAmount());
+    }
+
+    @Test
+    public void testGetDeviceByIdWhenNotFoundIsTaggedWithOutcome() {
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> deviceService.getDeviceById(1L));
+
+        assertEquals(1, meterRegistry.get(DeviceMetricsAspect.SERVICE_TIMER)
+                .tags("operation", "getDeviceById", "outcome", "not_found")
+                .timer()
+                .count());
+    }
+}
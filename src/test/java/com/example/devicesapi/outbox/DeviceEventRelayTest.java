@@ -0,0 +1,76 @@
+package com.example.devicesapi.outbox;
+
+import com.example.devicesapi.entity.DeviceEventEntity;
+import com.example.devicesapi.repository.DeviceEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DeviceEventRelayTest {
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private DeviceEventRepository deviceEventRepository;
+    @Mock
+    private DeviceEventSink sink;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeviceEventRelay relay;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new DeviceEventRelay(deviceEventRepository, sink, new TransactionTemplate(transactionManager),
+                meterRegistry, BATCH_SIZE, true);
+    }
+
+    @Test
+    public void testRelayDrainsOutboxInBatches() {
+        List<DeviceEventEntity> first = List.of(event(1), event(2));
+        List<DeviceEventEntity> second = List.of(event(3));
+        when(deviceEventRepository.takeOldest(BATCH_SIZE)).thenReturn(first, second);
+
+        relay.relay();
+
+        verify(sink).publish(first);
+        verify(sink).publish(second);
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3, meterRegistry.get("devices.outbox.relayed").counter().count());
+    }
+
+    @Test
+    public void testFailedPublishRollsBackBatch() {
+        List<DeviceEventEntity> events = List.of(event(1));
+        when(deviceEventRepository.takeOldest(BATCH_SIZE)).thenReturn(events);
+        doThrow(new IllegalStateException("sink unavailable")).when(sink).publish(events);
+
+        relay.relay();
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        assertEquals(0, meterRegistry.get("devices.outbox.relayed").counter().count());
+    }
+
+    private static DeviceEventEntity event(long id) {
+        return new DeviceEventEntity(id, 10L, "created", null, "{\"id\": 10}", Instant.now());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.devicesapi.outbox;
+
+import com.example.devicesapi.entity.DeviceEventEntity;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileDeviceEventSinkTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testConcurrentPublishesOnVirtualThreadsAppendWholeBatchesWithoutPinning() throws IOException {
+        Path file = directory.resolve("events/device-events.ndjson");
+        FileDeviceEventSink sink = new FileDeviceEventSink(jsonMapper, file);
+
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (long batch = 0; batch < 100; batch++) {
+                    List<DeviceEventEntity> events = List.of(event(batch * 2 + 1), event(batch * 2 + 2));
+                    executor.submit(() -> sink.publish(events));
+                }
+            }
+            recording.stop();
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(200, lines.size());
+        for (int i = 0; i < lines.size(); i += 2) {
+            long first = jsonMapper.readTree(lines.get(i)).get("id").asLong();
+            assertEquals(first + 1, jsonMapper.readTree(lines.get(i + 1)).get("id").asLong());
+        }
+        List<RecordedEvent> pinnedInSink = pinned.stream()
+                .filter(event -> event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                        .anyMatch(frame -> frame.getMethod().getType().getName()
+                                .equals(FileDeviceEventSink.class.getName())))
+                .toList();
+        assertTrue(pinnedInSink.isEmpty(), () -> "Virtual threads pinned while publishing:\n" + pinnedInSink);
+    }
+
+    private static DeviceEventEntity event(long id) {
+        return new DeviceEventEntity(id, 10L, "created", null, "{\"id\": 10}", Instant.now());
+    }
+}
@@ -2,7 +2,13 @@ package com.example.devicesapi.repository;
 
 import com.example.devicesapi.config.DataConfig;
 import com.example.devicesapi.entity.DeviceEntity;
+import com.example.devicesapi.entity.DeviceEventEntity;
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.DeviceField;
 import com.example.devicesapi.model.State;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -15,22 +21,35 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jdbc.test.autoconfigure.DataJdbcTest;
 import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.Commit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
 import static com.example.devicesapi.TestUtil.DEVICE_BRAND_1;
+import static com.example.devicesapi.TestUtil.DEVICE_BRAND_2;
 import static com.example.devicesapi.TestUtil.DEVICE_NAME_1;
 import static com.example.devicesapi.TestUtil.DEVICE_NAME_2;
 import static com.example.devicesapi.TestUtil.UPDATED_DEVICE_NAME_1;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJdbcTest
@@ -44,19 +63,23 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class DeviceRepositoryTest {
     @Autowired
     private DeviceRepository deviceRepository;
+    @Autowired
+    private DeviceEventRepository deviceEventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
     private Instant createdAt;
 
     @Test
     @Order(1)
     public void testGetAll() {
-        List<DeviceEntity> allDevices = deviceRepository.findAll();
-        assertEquals(3, allDevices.size()); // 3 items were pre-loaded from test-data.sql
+        List<DeviceEntity> allDevices = deviceRepository.findPage(0, 100);
+        assertEquals(3, allDevices.size()); // 3 items were pre-loaded from db/testdata
     }
 
     @Test
     @Order(2)
     public void testFindByBrand() {
-        List<DeviceEntity> devices = deviceRepository.findByBrand(DEVICE_BRAND_1);
+        List<DeviceEntity> devices = deviceRepository.findPageByBrand(DEVICE_BRAND_1, 0, 100);
         assertEquals(1, devices.size());
         assertEquals(DEVICE_NAME_1, devices.getFirst().getName());
         assertNotNull(devices.getFirst().getCreatedAt());
@@ -66,7 +89,7 @@ public class DeviceRepositoryTest {
     @MethodSource("findByStateParameters")
     @Order(3)
     public void testFindByState(State state, int expectedCound) {
-        List<DeviceEntity> byState = deviceRepository.findByState(state.getValue());
+        List<DeviceEntity> byState = deviceRepository.findPageByState(state, 0, 100);
         assertEquals(expectedCound, byState.size());
     }
 
@@ -88,8 +111,9 @@ public class DeviceRepositoryTest {
                 entity.getId(),
                 UPDATED_DEVICE_NAME_1,
                 entity.getBrand(),
-                State.IN_USE.getValue(),
-                Instant.now()
+                State.IN_USE,
+                Instant.now(),
+                entity.getVersion()
         );
 
         assertNotEquals(createdAt, newEntity.getCreatedAt());
@@ -103,7 +127,7 @@ public class DeviceRepositoryTest {
         DeviceEntity entity = deviceRepository.findById(1L).get();
         // Check the previous update operation was applied and committed to the database
         assertEquals(UPDATED_DEVICE_NAME_1, entity.getName());
-        assertEquals(State.IN_USE.getValue(), entity.getState());
+        assertEquals(State.IN_USE, entity.getState());
         assertEquals(createdAt, entity.getCreatedAt());
 
         assertDoesNotThrow(() -> deviceRepository.deleteById(1L));
@@ -112,10 +136,325 @@ public class DeviceRepositoryTest {
     @Test
     @Order(7)
     public void testGetAllAfterDelete() {
-        List<DeviceEntity> allDevices = deviceRepository.findAll();
+        List<DeviceEntity> allDevices = deviceRepository.findPage(0, 100);
         assertEquals(2, allDevices.size());
     }
 
+    @Test
+    @Order(8)
+    public void testFindPageIsKeyset() {
+        List<DeviceEntity> firstPage = deviceRepository.findPage(0, 1);
+        assertEquals(1, firstPage.size());
+
+        List<DeviceEntity> secondPage = deviceRepository.findPage(firstPage.getFirst().getId(), 1);
+        assertEquals(1, secondPage.size());
+        assertTrue(secondPage.getFirst().getId() > firstPage.getFirst().getId());
+
+        assertTrue(deviceRepository.findPage(secondPage.getFirst().getId(), 1).isEmpty());
+    }
+
+    @Test
+    @Order(9)
+    public void testFindPageByBrandAndState() {
+        List<DeviceEntity> devices = deviceRepository.findPageByBrandAndState(
+                DEVICE_BRAND_2, State.INACTIVE, 0, 100);
+        assertEquals(1, devices.size());
+        assertEquals(DEVICE_NAME_2, devices.getFirst().getName());
+
+        assertTrue(deviceRepository.findPageByBrandAndState(
+                DEVICE_BRAND_2, State.INACTIVE, devices.getFirst().getId(), 100).isEmpty());
+    }
+
+    @Test
+    @Order(10)
+    public void testForEachDeviceStreamsInIdOrder() {
+        List<DeviceEntity> streamed = new ArrayList<>();
+        deviceRepository.forEachDevice(streamed::add);
+
+        assertEquals(2, streamed.size());
+        assertTrue(streamed.getFirst().getId() < streamed.getLast().getId());
+        assertNotNull(streamed.getFirst().getCreatedAt());
+    }
+
+    @Test
+    @Order(11)
+    public void testInsertIgnoringDuplicates() {
+        List<DeviceEntity> inserted = deviceRepository.insertIgnoringDuplicates(List.of(
+                new DeviceEntity(DEVICE_NAME_2, DEVICE_BRAND_2, State.AVAILABLE),
+                new DeviceEntity("Batch Device", DEVICE_BRAND_2, State.AVAILABLE)));
+
+        assertEquals(1, inserted.size());
+        assertEquals("Batch Device", inserted.getFirst().getName());
+        assertTrue(inserted.getFirst().getId() > 0);
+        assertNotNull(inserted.getFirst().getCreatedAt());
+    }
+
+    @Test
+    @Order(12)
+    public void testUpdateStates() {
+        Map<Long, Boolean> changed = deviceRepository.updateStates(List.of(2L, 3L, 999L), State.AVAILABLE);
+        assertEquals(Map.of(2L, true, 3L, true), changed);
+
+        Map<Long, Boolean> repeated = deviceRepository.updateStates(List.of(2L), State.AVAILABLE);
+        assertEquals(Map.of(2L, false), repeated);
+        assertEquals(State.AVAILABLE, deviceRepository.findById(2L).get().getState());
+    }
+
+    @Test
+    @Order(13)
+    public void testConditionalMutationsSkipDevicesInUse() {
+        deviceRepository.updateStates(List.of(2L), State.IN_USE);
+
+        assertTrue(deviceRepository.updateIfNotInUse(2L, DEVICE_NAME_2, DEVICE_BRAND_2, State.AVAILABLE, null)
+                .isEmpty());
+        assertTrue(deviceRepository.partialUpdateIfAllowed(2L, UPDATED_DEVICE_NAME_1, null, null, null).isEmpty());
+        assertTrue(deviceRepository.deleteIfNotInUse(2L, null).isEmpty());
+
+        Optional<DeviceEntity> stateOnly = deviceRepository.partialUpdateIfAllowed(
+                2L, null, null, State.AVAILABLE, null);
+        assertTrue(stateOnly.isPresent());
+        assertEquals(DEVICE_NAME_2, stateOnly.get().getName());
+        assertEquals(State.AVAILABLE, stateOnly.get().getState());
+        assertNotNull(stateOnly.get().getCreatedAt());
+
+        Optional<DeviceEntity> updated = deviceRepository.updateIfNotInUse(
+                2L, UPDATED_DEVICE_NAME_1, DEVICE_BRAND_2, State.INACTIVE, null);
+        assertTrue(updated.isPresent());
+        assertEquals(UPDATED_DEVICE_NAME_1, updated.get().getName());
+
+        Optional<DeviceEntity> deleted = deviceRepository.deleteIfNotInUse(2L, null);
+        assertTrue(deleted.isPresent());
+        assertEquals(UPDATED_DEVICE_NAME_1, deleted.get().getName());
+        assertFalse(deviceRepository.existsById(2L));
+    }
+
+    @Test
+    @Order(14)
+    public void testConditionalMutationsCheckVersion() {
+        long version = deviceRepository.findById(3L).get().getVersion();
+
+        assertTrue(deviceRepository.partialUpdateIfAllowed(3L, null, null, State.IN_USE, version + 1)
+                .isEmpty());
+        assertTrue(deviceRepository.deleteIfNotInUse(3L, version + 1).isEmpty());
+
+        Optional<DeviceEntity> updated = deviceRepository.partialUpdateIfAllowed(
+                3L, null, null, State.IN_USE, version);
+        assertTrue(updated.isPresent());
+        assertEquals(version + 1, updated.get().getVersion());
+    }
+
+    @Test
+    @Order(15)
+    public void testFilteredPagesUseIndexesOnLargeTable() {
+        // 100k devices over 1000 brands with 1% of them in use; rolled back with the test transaction
+        jdbcTemplate.update("""
+                INSERT INTO devices (name, brand, state)
+                SELECT 'Seeded ' || i, 'Seeded Brand ' || (i % 1000),
+                       CAST(CASE WHEN i % 100 = 0 THEN 'in-use' WHEN i % 2 = 0 THEN 'available' ELSE 'inactive' END
+                            AS device_state)
+                FROM generate_series(1, 100000) AS i""");
+        jdbcTemplate.execute("ANALYZE devices");
+
+        assertUsesIndex(List.of("devices_brand_id_idx"),
+                "SELECT * FROM devices WHERE brand = ? AND id > ? ORDER BY id LIMIT ?",
+                "Seeded Brand 7", 0L, 101);
+        assertUsesIndex(List.of("devices_brand_state_id_idx"),
+                "SELECT * FROM devices WHERE brand = ? AND state = ?::device_state AND id > ? ORDER BY id LIMIT ?",
+                "Seeded Brand 7", State.INACTIVE.getValue(), 0L, 101);
+        assertUsesIndex(List.of("devices_in_use_idx", "devices_state_id_idx"),
+                "SELECT * FROM devices WHERE state = ?::device_state AND id > ? ORDER BY id LIMIT ?",
+                State.IN_USE.getValue(), 0L, 101);
+    }
+
+    @Test
+    @Order(16)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testConcurrentReadsOnVirtualThreadsDoNotPinCarriers() {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            // far more readers than pooled connections, so threads park in the pool and in the driver
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 500; i++) {
+                    executor.submit(() -> deviceRepository.findById(2L));
+                }
+            }
+            recording.stop();
+        }
+
+        List<RecordedEvent> pinnedInJdbcPath = pinned.stream()
+                .filter(DeviceRepositoryTest::isInJdbcPath)
+                .toList();
+        assertTrue(pinnedInJdbcPath.isEmpty(), () -> "Virtual threads pinned in JDBC path:\n" + pinnedInJdbcPath);
+    }
+
+    @Test
+    @Order(17)
+    public void testStateIsStoredAsEnum() {
+        DeviceEntity saved = deviceRepository.save(new DeviceEntity("Enum Device", DEVICE_BRAND_2, State.IN_USE));
+
+        assertEquals("device_state", jdbcTemplate.queryForObject(
+                "SELECT pg_typeof(state)::text FROM devices WHERE id = ?", String.class, saved.getId()));
+        assertEquals(State.IN_USE, deviceRepository.findById(saved.getId()).get().getState());
+        assertEquals(1, deviceRepository.findPageByState(State.IN_USE, saved.getId() - 1, 100).size());
+    }
+
+    @Test
+    @Order(18)
+    public void testCountByBrandAndState() {
+        deviceRepository.save(new DeviceEntity("Counted Device", DEVICE_BRAND_2, State.AVAILABLE));
+
+        List<DeviceCount> counts = deviceRepository.countByBrandAndState();
+        assertTrue(counts.contains(new DeviceCount(DEVICE_BRAND_2, State.AVAILABLE, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM devices WHERE brand = ? AND state = 'available'", Long.class, DEVICE_BRAND_2))));
+        assertEquals(jdbcTemplate.queryForObject("SELECT count(*) FROM devices", Long.class),
+                counts.stream().mapToLong(DeviceCount::count).sum());
+
+        DeviceCountSnapshot counted = deviceRepository.countByBrandAndStateWithSnapshot();
+        assertEquals(counts, counted.counts());
+        assertTrue(counted.snapshot().xmin() <= counted.snapshot().xmax());
+    }
+
+    @Test
+    @Order(19)
+    public void testFindProjectedPageReadsSelectedColumns() {
+        List<DeviceEntity> devices = deviceRepository.findProjectedPage(
+                DeviceField.parse("state"), DEVICE_BRAND_2, State.INACTIVE, 0, 100);
+
+        assertEquals(1, devices.size());
+        devices.forEach(device -> {
+            assertEquals(2L, device.getId());
+            assertEquals(State.INACTIVE, device.getState());
+            assertNull(device.getName());
+            assertNull(device.getBrand());
+            assertNull(device.getCreatedAt());
+        });
+    }
+
+    @Test
+    @Order(20)
+    public void testDeviceChangesAreRecordedInOutbox() {
+        DeviceEntity saved = deviceRepository.save(new DeviceEntity("Outbox Device", DEVICE_BRAND_2, State.AVAILABLE));
+        deviceRepository.partialUpdateIfAllowed(saved.getId(), null, null, State.INACTIVE, null);
+        deviceRepository.deleteIfNotInUse(saved.getId(), null);
+
+        List<DeviceEventEntity> events = deviceEventRepository.takeOldest(Integer.MAX_VALUE).stream()
+                .filter(event -> event.getDeviceId() == saved.getId())
+                .toList();
+        assertEquals(List.of("created", "updated", "deleted"),
+                events.stream().map(DeviceEventEntity::getType).toList());
+        assertNull(events.getFirst().getOldDevice());
+        assertTrue(events.get(1).getOldDevice().contains("\"available\""));
+        assertTrue(events.get(1).getNewDevice().contains("\"inactive\""));
+        assertNull(events.getLast().getNewDevice());
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT count(*) FROM device_events", Long.class).longValue());
+    }
+
+    @Test
+    @Order(21)
+    public void testLeaseAndReleaseOnlyMatchExpectedState() {
+        DeviceEntity saved = deviceRepository.save(new DeviceEntity("Lease Device", DEVICE_BRAND_2, State.AVAILABLE));
+
+        assertEquals(State.IN_USE, deviceRepository.leaseIfAvailable(saved.getId(), 60).get().getState());
+        assertTrue(deviceRepository.leaseIfAvailable(saved.getId(), 60).isEmpty());
+        assertEquals(State.AVAILABLE, deviceRepository.releaseIfInUse(saved.getId()).get().getState());
+        assertTrue(deviceRepository.releaseIfInUse(saved.getId()).isEmpty());
+    }
+
+    @Test
+    @Order(22)
+    public void testLeaseAvailableByBrandLeasesAtMostCount() {
+        String brand = "Lease Brand";
+        for (int i = 0; i < 3; i++) {
+            deviceRepository.save(new DeviceEntity("Lease Device " + i, brand, State.AVAILABLE));
+        }
+        deviceRepository.save(new DeviceEntity("Inactive Lease Device", brand, State.INACTIVE));
+
+        List<DeviceEntity> leased = deviceRepository.leaseAvailableByBrand(brand, 2, 60);
+        assertEquals(2, leased.size());
+        leased.forEach(device -> assertEquals(State.IN_USE, device.getState()));
+        assertEquals(1, deviceRepository.leaseAvailableByBrand(brand, 2, 60).size());
+        assertTrue(deviceRepository.leaseAvailableByBrand(brand, 2, 60).isEmpty());
+    }
+
+    @Test
+    @Order(23)
+    public void testReleaseExpiredLeasesInBoundedBatchesUsingIndex() {
+        // 100k devices with 1000 expired leases; rolled back with the test transaction
+        jdbcTemplate.update("""
+                INSERT INTO devices (name, brand, state, lease_expires_at)
+                SELECT 'Leased ' || i, 'Leased Brand ' || (i % 1000),
+                       CAST(CASE WHEN i % 100 = 0 THEN 'in-use' ELSE 'available' END AS device_state),
+                       CASE WHEN i % 100 = 0 THEN now() - INTERVAL '1 minute' END
+                FROM generate_series(1, 100000) AS i""");
+        DeviceEntity leased = deviceRepository.save(new DeviceEntity("Still Leased", DEVICE_BRAND_2, State.AVAILABLE));
+        deviceRepository.leaseIfAvailable(leased.getId(), 60);
+        jdbcTemplate.execute("ANALYZE devices");
+
+        assertUsesIndex(List.of("devices_lease_expires_at_idx"), """
+                SELECT id FROM devices WHERE lease_expires_at <= now() AND state = 'in-use'
+                ORDER BY lease_expires_at LIMIT ?""", 500);
+        assertEquals(500, deviceRepository.releaseExpiredLeases(500).size());
+        assertEquals(500, deviceRepository.releaseExpiredLeases(1000).size());
+        assertTrue(deviceRepository.releaseExpiredLeases(1000).isEmpty());
+        assertEquals(State.IN_USE, deviceRepository.findById(leased.getId()).get().getState());
+    }
+
+    @Test
+    @Order(24)
+    public void testSearchPageOrdersByRelevanceWithKeysetAndUsesTrigramIndexes() {
+        // 100k devices over 1000 brands; rolled back with the test transaction
+        jdbcTemplate.update("""
+                INSERT INTO devices (name, brand, state)
+                SELECT 'Search Device ' || i, 'Search Brand ' || (i % 1000), CAST('available' AS device_state)
+                FROM generate_series(1, 100000) AS i""");
+        jdbcTemplate.execute("ANALYZE devices");
+
+        assertUsesIndex(List.of("devices_name_trgm_idx", "devices_brand_trgm_idx"),
+                "SELECT id FROM devices WHERE (name ILIKE ? OR brand ILIKE ?)",
+                "%Search Device 4242%", "%Search Device 4242%");
+
+        // 'Search Device 4242' and 'Search Device 42420' to 'Search Device 42429'
+        List<DeviceSearchHit> hits = new ArrayList<>();
+        List<DeviceSearchHit> page = deviceRepository.searchPage("search device 4242", null, null, null, null, 0, 5);
+        while (!page.isEmpty()) {
+            hits.addAll(page);
+            DeviceSearchHit last = page.getLast();
+            page = deviceRepository.searchPage("search device 4242", null, null, null,
+                    last.score(), last.device().getId(), 5);
+        }
+
+        assertEquals(11, hits.size());
+        assertEquals(11, hits.stream().map(hit -> hit.device().getId()).distinct().count());
+        assertEquals("Search Device 4242", hits.getFirst().device().getName());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+        assertTrue(deviceRepository.searchPage("search device 4242", Set.of(DeviceField.ID), null, State.INACTIVE,
+                null, 0, 5).isEmpty());
+        assertTrue(deviceRepository.searchPage("100%", null, null, null, null, 0, 5).isEmpty());
+    }
+
+    private static boolean isInJdbcPath(RecordedEvent event) {
+        return event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName())
+                .anyMatch(type -> type.startsWith("org.postgresql.") || type.startsWith("com.zaxxer.hikari.")
+                        || type.startsWith("com.example.devicesapi."));
+    }
+
+    private void assertUsesIndex(List<String> indexes, String sql, Object... args) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+        assertTrue(indexes.stream().anyMatch(index ->
+                        plan.contains("Index Scan using " + index) || plan.contains("Bitmap Index Scan on " + index)),
+                () -> "Expected one of " + indexes + " to be used, got plan:\n" + plan);
+        assertFalse(plan.contains("Seq Scan"), () -> "Expected no sequential scan, got plan:\n" + plan);
+        assertFalse(plan.contains("Sort"), () -> "Expected rows in index order without sorting, got plan:\n" + plan);
+    }
+
     private static Stream<Arguments> findByStateParameters() {
         return Stream.of(
                 Arguments.of(State.INACTIVE, 3),
@@ -0,0 +1,47 @@
+package com.example.devicesapi.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchDrainTest {
+    private static final Logger logger = LoggerFactory.getLogger(BatchDrainTest.class);
+    private static final int BATCH_SIZE = 2;
+
+    private Counter processed;
+
+    @BeforeEach
+    public void setUp() {
+        processed = Counter.builder("processed").register(new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testRunsBatchesUntilOneIsNotFull() {
+        Deque<Integer> batches = new ArrayDeque<>(List.of(2, 2, 1, 2));
+
+        BatchDrain.run(logger, "process items", BATCH_SIZE, batches::removeFirst, processed);
+
+        assertEquals(List.of(2), List.copyOf(batches));
+        assertEquals(5, processed.count());
+    }
+
+    @Test
+    public void testFailedBatchEndsRunWithoutThrowing() {
+        Deque<Integer> batches = new ArrayDeque<>(List.of(2));
+
+        BatchDrain.run(logger, "process items", BATCH_SIZE, batches::removeFirst, processed);
+
+        assertTrue(batches.isEmpty());
+        assertEquals(2, processed.count());
+    }
+}
@@ -1,33 +1,56 @@
 package com.example.devicesapi.service;
 
+import com.example.devicesapi.cache.DeviceCache;
+import com.example.devicesapi.cache.DeviceCounters;
+import com.example.devicesapi.cache.DeviceStatsCache;
 import com.example.devicesapi.entity.DeviceEntity;
 import com.example.devicesapi.exception.BlockedResourceException;
 import com.example.devicesapi.exception.DuplicatedDataException;
+import com.example.devicesapi.exception.InvalidInputPropertyException;
+import com.example.devicesapi.exception.PreconditionFailedException;
 import com.example.devicesapi.exception.ResourceNotFoundException;
+import com.example.devicesapi.exception.StateConflictException;
 import com.example.devicesapi.mapper.DeviceMapper;
+import com.example.devicesapi.model.BatchCreateResult;
+import com.example.devicesapi.model.BulkItemStatus;
+import com.example.devicesapi.model.BulkStateChangeRequest;
 import com.example.devicesapi.model.CreateDeviceRequest;
+import com.example.devicesapi.model.DeviceCount;
+import com.example.devicesapi.model.DeviceField;
+import com.example.devicesapi.model.DevicePage;
 import com.example.devicesapi.model.DeviceResponse;
+import com.example.devicesapi.model.PageCursor;
 import com.example.devicesapi.model.PartialUpdateDeviceRequest;
 import com.example.devicesapi.model.State;
+import com.example.devicesapi.model.StateChangeResult;
 import com.example.devicesapi.repository.DeviceRepository;
+import com.example.devicesapi.repository.DeviceSearchHit;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +59,8 @@ public class DeviceServiceTests {
     private static final String DEVICE_BRAND = "BrandA";
     private static final Instant CREATED_AT = Instant.now();
     private static final Long DEVICE_ID = 1L;
+    private static final Long DEVICE_VERSION = 0L;
+    private static final long LEASE_SECONDS = 900;
 
     @Mock
     private DeviceRepository deviceRepository;
@@ -43,9 +68,23 @@ public class DeviceServiceTests {
     @Mock
     private DeviceMapper deviceMapper;
 
-    @InjectMocks
+    @Spy
+    private DeviceCache deviceCache = new DeviceCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private DeviceStatsCache deviceStatsCache = new DeviceStatsCache(Duration.ofMinutes(1));
+
+    @Mock
+    private DeviceCounters deviceCounters;
+
     private DeviceService deviceService;
 
+    @BeforeEach
+    public void setUp() {
+        deviceService = new DeviceService(deviceRepository, deviceMapper, deviceCache, deviceStatsCache,
+                deviceCounters, Duration.ofSeconds(LEASE_SECONDS));
+    }
+
     @Test
     public void testCreateDevice() {
         CreateDeviceRequest createDeviceRequest =
@@ -73,6 +112,57 @@ public class DeviceServiceTests {
         assertThrows(DuplicatedDataException.class, () -> deviceService.createDevice(createDeviceRequest));
     }
 
+    @Test
+    public void testCreateDevicesReportsOutcomePerEntry() {
+        List<CreateDeviceRequest> requests = List.of(
+                new CreateDeviceRequest(DEVICE_NAME, DEVICE_BRAND, null),
+                new CreateDeviceRequest("", DEVICE_BRAND, null),
+                new CreateDeviceRequest("Existing", DEVICE_BRAND, null),
+                new CreateDeviceRequest(DEVICE_NAME, DEVICE_BRAND, State.AVAILABLE));
+        DeviceEntity inserted = getDeviceEntity(State.INACTIVE);
+
+        when(deviceMapper.createDeviceRequestToEntity(any(CreateDeviceRequest.class))).thenCallRealMethod();
+        when(deviceRepository.insertIgnoringDuplicates(any())).thenReturn(List.of(inserted));
+        when(deviceMapper.fromEntityToDeviceResponse(inserted)).thenCallRealMethod();
+
+        List<BatchCreateResult> results = deviceService.createDevices(requests);
+
+        assertEquals(4, results.size());
+        assertEquals(BulkItemStatus.CREATED, results.get(0).status());
+        assertDeviceResponse(results.get(0).device(), State.INACTIVE);
+        assertEquals(BulkItemStatus.INVALID, results.get(1).status());
+        assertEquals(BulkItemStatus.DUPLICATE, results.get(2).status());
+        assertEquals(BulkItemStatus.DUPLICATE, results.get(3).status());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).index());
+        }
+    }
+
+    @Test
+    public void testCreateDevicesReportsOverLongNameAsInvalid() {
+        String longName = "x".repeat(CreateDeviceRequest.MAX_LENGTH + 1);
+        List<CreateDeviceRequest> requests = List.of(
+                new CreateDeviceRequest(longName, DEVICE_BRAND, null),
+                new CreateDeviceRequest(DEVICE_NAME, DEVICE_BRAND, null));
+        DeviceEntity inserted = getDeviceEntity(State.INACTIVE);
+
+        when(deviceMapper.createDeviceRequestToEntity(any(CreateDeviceRequest.class))).thenCallRealMethod();
+        when(deviceRepository.insertIgnoringDuplicates(any())).thenReturn(List.of(inserted));
+        when(deviceMapper.fromEntityToDeviceResponse(inserted)).thenCallRealMethod();
+
+        List<BatchCreateResult> results = deviceService.createDevices(requests);
+
+        assertEquals(BulkItemStatus.INVALID, results.get(0).status());
+        assertEquals(BulkItemStatus.CREATED, results.get(1).status());
+        verify(deviceRepository).insertIgnoringDuplicates(argThat(devices -> devices.size() == 1
+                && devices.getFirst().getName().equals(DEVICE_NAME)));
+    }
+
+    @Test
+    public void testCreateDevicesWithEmptyBatch() {
+        assertThrows(InvalidInputPropertyException.class, () -> deviceService.createDevices(List.of()));
+    }
+
     @Test
     public void testGetDeviceById() {
         DeviceEntity entity = getDeviceEntity(State.IN_USE);
@@ -86,6 +176,55 @@ public class DeviceServiceTests {
         assertDeviceResponse(response, State.IN_USE);
     }
 
+    @Test
+    public void testGetDeviceByIdServedFromCache() {
+        DeviceEntity entity = getDeviceEntity(State.IN_USE);
+
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(entity));
+        when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
+
+        DeviceResponse first = deviceService.getDeviceById(DEVICE_ID);
+        DeviceResponse second = deviceService.getDeviceById(DEVICE_ID);
+
+        assertEquals(first, second);
+        verify(deviceRepository, times(1)).findById(DEVICE_ID);
+    }
+
+    @Test
+    public void testGetDeviceByIdAfterUpdateReturnsUpdatedDevice() {
+        DeviceEntity entity = getDeviceEntity(State.AVAILABLE);
+        PartialUpdateDeviceRequest updateRequest = new PartialUpdateDeviceRequest(null, State.IN_USE, null);
+        DeviceEntity updatedEntity = new DeviceEntity(DEVICE_ID, DEVICE_NAME, DEVICE_BRAND, State.IN_USE,
+                CREATED_AT, DEVICE_VERSION + 1);
+
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(entity));
+        when(deviceRepository.partialUpdateIfAllowed(DEVICE_ID, null, null, State.IN_USE, null))
+                .thenReturn(Optional.of(updatedEntity));
+        when(deviceMapper.fromEntityToDeviceResponse(any(DeviceEntity.class))).thenCallRealMethod();
+
+        deviceService.getDeviceById(DEVICE_ID);
+        deviceService.partialUpdateDevice(DEVICE_ID, updateRequest, null);
+        DeviceResponse response = deviceService.getDeviceById(DEVICE_ID);
+
+        assertEquals(State.IN_USE, response.state());
+        assertEquals(DEVICE_VERSION + 1, response.version());
+        verify(deviceRepository, times(1)).findById(DEVICE_ID);
+    }
+
+    @Test
+    public void testGetDeviceByIdAfterDeleteIsNotFound() {
+        DeviceEntity entity = getDeviceEntity(State.AVAILABLE);
+
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(entity), Optional.empty());
+        when(deviceRepository.deleteIfNotInUse(DEVICE_ID, null)).thenReturn(Optional.of(entity));
+        when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
+
+        deviceService.getDeviceById(DEVICE_ID);
+        deviceService.deleteDevice(DEVICE_ID, null);
+
+        assertThrows(ResourceNotFoundException.class, () -> deviceService.getDeviceById(DEVICE_ID));
+    }
+
     @Test
     public void testGetByIdWhenNotFound() {
         when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.empty());
@@ -99,45 +238,45 @@ public class DeviceServiceTests {
 
         CreateDeviceRequest updateRequest =
                 new CreateDeviceRequest(updatedDeviceName, updatedDeviceBrand, State.IN_USE);
-        DeviceEntity existingEntity = getDeviceEntity(State.AVAILABLE);
         DeviceEntity updatedEntity =
-                new DeviceEntity(DEVICE_ID, updatedDeviceName, updatedDeviceBrand, State.IN_USE.getValue(), CREATED_AT);
+                new DeviceEntity(DEVICE_ID, updatedDeviceName, updatedDeviceBrand, State.IN_USE, CREATED_AT);
 
-
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
         when(deviceMapper.createDeviceRequestToEntity(updateRequest, DEVICE_ID))
                 .thenCallRealMethod();
-        when(deviceRepository.save(any(DeviceEntity.class)))
-                .thenReturn(updatedEntity);
+        when(deviceRepository.updateIfNotInUse(
+                DEVICE_ID, updatedDeviceName, updatedDeviceBrand, State.IN_USE, null))
+                .thenReturn(Optional.of(updatedEntity));
         when(deviceMapper.fromEntityToDeviceResponse(any(DeviceEntity.class)))
                 .thenCallRealMethod();
 
-        DeviceResponse deviceResponse = deviceService.updateDevice(DEVICE_ID, updateRequest);
+        DeviceResponse deviceResponse = deviceService.updateDevice(DEVICE_ID, updateRequest, null);
 
         assertNotNull(deviceResponse);
         assertEquals(DEVICE_ID, deviceResponse.id());
         assertEquals(updatedDeviceName, deviceResponse.name());
         assertEquals(updatedDeviceBrand, deviceResponse.brand());
-        assertEquals(State.IN_USE.getValue(), deviceResponse.state());
+        assertEquals(State.IN_USE, deviceResponse.state());
+        assertEquals(CREATED_AT, deviceResponse.createdAt().toInstant());
     }
 
     @Test
     public void testUpdateDeviceWhenNotFound() {
-        CreateDeviceRequest updateRequest = mock(CreateDeviceRequest.class);
+        CreateDeviceRequest updateRequest = new CreateDeviceRequest(DEVICE_NAME, DEVICE_BRAND, null);
 
+        when(deviceMapper.createDeviceRequestToEntity(updateRequest, DEVICE_ID)).thenCallRealMethod();
         when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
-                () -> deviceService.updateDevice(DEVICE_ID, updateRequest));
+                () -> deviceService.updateDevice(DEVICE_ID, updateRequest, null));
     }
 
     @Test
     public void testUpdateDeviceWhenInUse() {
-        CreateDeviceRequest updateRequest = mock(CreateDeviceRequest.class);
-        DeviceEntity existingEntity = getDeviceEntity(State.IN_USE);
+        CreateDeviceRequest updateRequest = new CreateDeviceRequest(DEVICE_NAME, DEVICE_BRAND, null);
 
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
+        when(deviceMapper.createDeviceRequestToEntity(updateRequest, DEVICE_ID)).thenCallRealMethod();
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(getDeviceEntity(State.IN_USE)));
         assertThrows(BlockedResourceException.class,
-                () -> deviceService.updateDevice(DEVICE_ID, updateRequest));
+                () -> deviceService.updateDevice(DEVICE_ID, updateRequest, null));
     }
 
     @Test
@@ -145,78 +284,93 @@ public class DeviceServiceTests {
         CreateDeviceRequest updateRequest =
                 new CreateDeviceRequest("updatedName", "updatedBrand", State.AVAILABLE);
 
-        DeviceEntity existingEntity = getDeviceEntity(State.INACTIVE);
-
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
         when(deviceMapper.createDeviceRequestToEntity(updateRequest, DEVICE_ID))
                 .thenCallRealMethod();
-        when(deviceRepository.save(any(DeviceEntity.class)))
+        when(deviceRepository.updateIfNotInUse(
+                DEVICE_ID, "updatedName", "updatedBrand", State.AVAILABLE, null))
                 .thenThrow(new DataIntegrityViolationException("Data integrity violation"));
 
         assertThrows(DuplicatedDataException.class,
-                () -> deviceService.updateDevice(DEVICE_ID, updateRequest));
+                () -> deviceService.updateDevice(DEVICE_ID, updateRequest, null));
+    }
+
+    @Test
+    public void testUpdateDeviceWhenVersionDiffers() {
+        CreateDeviceRequest updateRequest = new CreateDeviceRequest(DEVICE_NAME, DEVICE_BRAND, null);
+
+        when(deviceMapper.createDeviceRequestToEntity(updateRequest, DEVICE_ID)).thenCallRealMethod();
+        when(deviceRepository.updateIfNotInUse(DEVICE_ID, DEVICE_NAME, DEVICE_BRAND, State.INACTIVE, 3L))
+                .thenReturn(Optional.empty());
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(getDeviceEntity(State.AVAILABLE)));
+        assertThrows(PreconditionFailedException.class,
+                () -> deviceService.updateDevice(DEVICE_ID, updateRequest, Set.of(3L)));
+    }
+
+    @Test
+    public void testDeleteDeviceMatchingAnyOfSeveralVersions() {
+        DeviceEntity deletedEntity = getDeviceEntity(State.AVAILABLE);
+
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(deletedEntity));
+        when(deviceRepository.deleteIfNotInUse(DEVICE_ID, DEVICE_VERSION)).thenReturn(Optional.of(deletedEntity));
+        when(deviceMapper.fromEntityToDeviceResponse(deletedEntity)).thenCallRealMethod();
+
+        DeviceResponse deviceResponse =
+                deviceService.deleteDevice(DEVICE_ID, Set.of(DEVICE_VERSION + 5, DEVICE_VERSION));
+        assertDeviceResponse(deviceResponse, State.AVAILABLE);
     }
 
     @Test
     public void testDeleteDevice() {
-        DeviceEntity existingEntity = getDeviceEntity(State.AVAILABLE);
+        DeviceEntity deletedEntity = getDeviceEntity(State.AVAILABLE);
 
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
+        when(deviceRepository.deleteIfNotInUse(DEVICE_ID, null)).thenReturn(Optional.of(deletedEntity));
+        when(deviceMapper.fromEntityToDeviceResponse(deletedEntity)).thenCallRealMethod();
 
-        assertDoesNotThrow(() -> deviceService.deleteDevice(DEVICE_ID));
+        DeviceResponse deviceResponse = deviceService.deleteDevice(DEVICE_ID, null);
+        assertDeviceResponse(deviceResponse, State.AVAILABLE);
     }
 
     @Test
     public void testDeleteDeviceWhenNotFound() {
+        when(deviceRepository.deleteIfNotInUse(DEVICE_ID, null)).thenReturn(Optional.empty());
         when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
-                () -> deviceService.deleteDevice(DEVICE_ID));
+                () -> deviceService.deleteDevice(DEVICE_ID, null));
     }
 
     @Test
     public void testDeleteDeviceWhenInUse() {
-        DeviceEntity existingEntity = getDeviceEntity(State.IN_USE);
-
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
+        when(deviceRepository.deleteIfNotInUse(DEVICE_ID, null)).thenReturn(Optional.empty());
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(getDeviceEntity(State.IN_USE)));
         assertThrows(BlockedResourceException.class,
-                () -> deviceService.deleteDevice(DEVICE_ID));
+                () -> deviceService.deleteDevice(DEVICE_ID, null));
     }
 
     @Test
     public void testPartialUpdateDevice() {
-
-        ArgumentCaptor<DeviceEntity> entityCaptor =
-                ArgumentCaptor.forClass(DeviceEntity.class);
-
         PartialUpdateDeviceRequest updateRequest =
                 new PartialUpdateDeviceRequest(null, State.IN_USE, null);
-        DeviceEntity existingEntity = getDeviceEntity(State.AVAILABLE);
         DeviceEntity savedEntity = getDeviceEntity(State.IN_USE);
 
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
-        when(deviceMapper.partialUpdateRequestToEntity(updateRequest, existingEntity)).thenCallRealMethod();
-        when(deviceRepository.save(entityCaptor.capture())).thenReturn(savedEntity);
+        when(deviceRepository.partialUpdateIfAllowed(DEVICE_ID, null, null, State.IN_USE, null))
+                .thenReturn(Optional.of(savedEntity));
         when(deviceMapper.fromEntityToDeviceResponse(savedEntity)).thenCallRealMethod();
 
-        DeviceResponse deviceResponse = deviceService.partialUpdateDevice(DEVICE_ID, updateRequest);
+        DeviceResponse deviceResponse = deviceService.partialUpdateDevice(DEVICE_ID, updateRequest, null);
 
         assertNotNull(deviceResponse);
         assertDeviceResponse(deviceResponse, State.IN_USE);
-
-        DeviceEntity captured = entityCaptor.getValue();
-
-        assertEquals(savedEntity.getBrand(), captured.getBrand());
-        assertEquals(savedEntity.getName(), captured.getName());
-        assertEquals(savedEntity.getState(), captured.getState());
     }
 
     @Test
     public void testPartialUpdateDeviceWhenNotFound() {
-        PartialUpdateDeviceRequest updateRequest = mock(PartialUpdateDeviceRequest.class);
+        PartialUpdateDeviceRequest updateRequest = new PartialUpdateDeviceRequest(null, State.AVAILABLE, null);
 
+        when(deviceRepository.partialUpdateIfAllowed(DEVICE_ID, null, null, State.AVAILABLE, null))
+                .thenReturn(Optional.empty());
         when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
-                () -> deviceService.partialUpdateDevice(DEVICE_ID, updateRequest));
+                () -> deviceService.partialUpdateDevice(DEVICE_ID, updateRequest, null));
     }
 
     @Test
@@ -224,11 +378,12 @@ public class DeviceServiceTests {
 
         PartialUpdateDeviceRequest updateRequest =
                 new PartialUpdateDeviceRequest("UpdatedName", null, null);
-        DeviceEntity existingEntity = getDeviceEntity(State.IN_USE);
 
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
+        when(deviceRepository.partialUpdateIfAllowed(DEVICE_ID, "UpdatedName", null, null, null))
+                .thenReturn(Optional.empty());
+        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(getDeviceEntity(State.IN_USE)));
         assertThrows(BlockedResourceException.class,
-                () -> deviceService.partialUpdateDevice(DEVICE_ID, updateRequest));
+                () -> deviceService.partialUpdateDevice(DEVICE_ID, updateRequest, null));
     }
 
     @Test
@@ -236,68 +391,266 @@ public class DeviceServiceTests {
 
         PartialUpdateDeviceRequest updateRequest =
                 new PartialUpdateDeviceRequest("updatedName", State.AVAILABLE, "updatedBrand");
-        DeviceEntity existingEntity = getDeviceEntity(State.INACTIVE);
 
-        when(deviceRepository.findById(DEVICE_ID)).thenReturn(Optional.of(existingEntity));
-        when(deviceMapper.partialUpdateRequestToEntity(updateRequest, existingEntity)).thenCallRealMethod();
-        when(deviceRepository.save(any(DeviceEntity.class)))
+        when(deviceRepository.partialUpdateIfAllowed(DEVICE_ID, "updatedName", "updatedBrand",
+                State.AVAILABLE, null))
                 .thenThrow(new DataIntegrityViolationException("Data integrity violation"));
 
         assertThrows(DuplicatedDataException.class,
-                () -> deviceService.partialUpdateDevice(DEVICE_ID, updateRequest));
+                () -> deviceService.partialUpdateDevice(DEVICE_ID, updateRequest, null));
     }
-    
+
+    @Test
+    public void testChangeStates() {
+        BulkStateChangeRequest request = new BulkStateChangeRequest(Set.of(3L, 1L, 2L), State.IN_USE);
+        when(deviceRepository.updateStates(request.ids(), State.IN_USE))
+                .thenReturn(Map.of(1L, true, 2L, false));
+
+        List<StateChangeResult> results = deviceService.changeStates(request);
+
+        assertEquals(List.of(
+                new StateChangeResult(1L, BulkItemStatus.UPDATED),
+                new StateChangeResult(2L, BulkItemStatus.UNCHANGED),
+                new StateChangeResult(3L, BulkItemStatus.NOT_FOUND)), results);
+    }
+
     @Test
     public void testGetDevicesByBrandAndState() {
         DeviceEntity entity = getDeviceEntity(State.IN_USE);
-        when(deviceRepository.findByBrandAndState(DEVICE_BRAND, State.IN_USE.getValue()))
+        when(deviceRepository.findPageByBrandAndState(DEVICE_BRAND, State.IN_USE, 0L,
+                DeviceService.DEFAULT_PAGE_SIZE + 1))
                 .thenReturn(List.of(entity));
 
         when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
 
-        List<DeviceResponse> devices = deviceService.getDevices(DEVICE_BRAND, State.IN_USE);
-        assertNotNull(devices);
-        assertEquals(1, devices.size());
-        assertDeviceResponse(devices.getFirst(), State.IN_USE);
+        DevicePage page = deviceService.getDevices(DEVICE_BRAND, State.IN_USE, null, null, null);
+        assertNotNull(page);
+        assertEquals(1, page.devices().size());
+        assertNull(page.nextCursor());
+        assertDeviceResponse(page.devices().getFirst(), State.IN_USE);
     }
 
     @Test
     public void testGetDevicesWithoutFilters() {
         DeviceEntity entity = getDeviceEntity(State.IN_USE);
 
-        when(deviceRepository.findAll()).thenReturn(List.of(entity));
+        when(deviceRepository.findPage(0L, DeviceService.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of(entity));
         when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
 
-        List<DeviceResponse> devices = deviceService.getDevices(null, null);
-        assertNotNull(devices);
-        assertEquals(1, devices.size());
-        assertDeviceResponse(devices.getFirst(), State.IN_USE);
+        DevicePage page = deviceService.getDevices(null, null, null, null, null);
+        assertNotNull(page);
+        assertEquals(1, page.devices().size());
+        assertNull(page.nextCursor());
+        assertDeviceResponse(page.devices().getFirst(), State.IN_USE);
     }
 
     @Test
     public void testGetDevicesByBrandOnly() {
         DeviceEntity entity = getDeviceEntity(State.IN_USE);
-        when(deviceRepository.findByBrand(DEVICE_BRAND)).thenReturn(List.of(entity));
+        when(deviceRepository.findPageByBrand(DEVICE_BRAND, 0L, DeviceService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(entity));
 
         when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
 
-        List<DeviceResponse> devices = deviceService.getDevices(DEVICE_BRAND, null);
-        assertNotNull(devices);
-        assertEquals(1, devices.size());
-        assertDeviceResponse(devices.getFirst(), State.IN_USE);
+        DevicePage page = deviceService.getDevices(DEVICE_BRAND, null, null, null, null);
+        assertNotNull(page);
+        assertEquals(1, page.devices().size());
+        assertDeviceResponse(page.devices().getFirst(), State.IN_USE);
     }
 
     @Test
     public void testGetDevicesByStateOnly() {
         DeviceEntity entity = getDeviceEntity(State.IN_USE);
 
-        when(deviceRepository.findByState(State.IN_USE.getValue())).thenReturn(List.of(entity));
+        when(deviceRepository.findPageByState(State.IN_USE, 0L, DeviceService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(entity));
         when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
 
-        List<DeviceResponse> devices = deviceService.getDevices(null, State.IN_USE);
-        assertNotNull(devices);
-        assertEquals(1, devices.size());
-        assertDeviceResponse(devices.getFirst(), State.IN_USE);
+        DevicePage page = deviceService.getDevices(null, State.IN_USE, null, null, null);
+        assertNotNull(page);
+        assertEquals(1, page.devices().size());
+        assertDeviceResponse(page.devices().getFirst(), State.IN_USE);
+    }
+
+    @Test
+    public void testGetDevicesWithSelectedFields() {
+        Set<DeviceField> fields = DeviceField.parse("state");
+        DeviceEntity entity = new DeviceEntity(DEVICE_ID, null, null, State.IN_USE, null, null);
+
+        when(deviceRepository.findProjectedPage(fields, DEVICE_BRAND, null, 0L, DeviceService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(entity));
+        when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
+
+        DevicePage page = deviceService.getDevices(DEVICE_BRAND, null, null, null, fields);
+        assertEquals(List.of(new DeviceResponse(DEVICE_ID, null, null, State.IN_USE, null, null)), page.devices());
+    }
+
+    @Test
+    public void testGetDevicesReturnsCursorWhenNextPageExists() {
+        DeviceEntity first = new DeviceEntity(5L, DEVICE_NAME, DEVICE_BRAND, State.AVAILABLE, CREATED_AT);
+        DeviceEntity second = new DeviceEntity(7L, DEVICE_NAME, DEVICE_BRAND, State.AVAILABLE, CREATED_AT);
+        String after = new PageCursor(3L).encode();
+
+        when(deviceRepository.findPage(3L, 2)).thenReturn(List.of(first, second));
+        when(deviceMapper.fromEntityToDeviceResponse(first)).thenCallRealMethod();
+
+        DevicePage page = deviceService.getDevices(null, null, after, 1, null);
+        assertEquals(1, page.devices().size());
+        assertEquals(5L, page.devices().getFirst().id());
+        assertEquals(5L, PageCursor.decode(page.nextCursor()).lastId());
+    }
+
+    @Test
+    public void testGetDevicesCapsLimit() {
+        when(deviceRepository.findPage(0L, DeviceService.MAX_PAGE_SIZE + 1)).thenReturn(List.of());
+
+        DevicePage page = deviceService.getDevices(null, null, null, DeviceService.MAX_PAGE_SIZE * 10, null);
+        assertEquals(0, page.devices().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    public void testGetDevicesWithInvalidCursorOrLimit() {
+        assertThrows(InvalidInputPropertyException.class,
+                () -> deviceService.getDevices(null, null, "not a cursor", null, null));
+        assertThrows(InvalidInputPropertyException.class,
+                () -> deviceService.getDevices(null, null, null, 0, null));
+    }
+
+    @Test
+    public void testSearchDevicesReturnsCursorWithScoreOfLastDevice() {
+        DeviceEntity first = new DeviceEntity(7L, DEVICE_NAME, DEVICE_BRAND, State.AVAILABLE, CREATED_AT);
+        DeviceEntity second = new DeviceEntity(5L, DEVICE_NAME, DEVICE_BRAND, State.AVAILABLE, CREATED_AT);
+        String after = new PageCursor(3L, 0.9f).encode();
+
+        when(deviceRepository.searchPage("dev", null, DEVICE_BRAND, null, 0.9f, 3L, 2)).thenReturn(List.of(
+                new DeviceSearchHit(first, 0.75f), new DeviceSearchHit(second, 0.5f)));
+        when(deviceMapper.fromEntityToDeviceResponse(first)).thenCallRealMethod();
+
+        DevicePage page = deviceService.searchDevices(" dev ", DEVICE_BRAND, null, after, 1, null);
+        assertEquals(1, page.devices().size());
+        assertEquals(7L, page.devices().getFirst().id());
+        assertEquals(new PageCursor(7L, 0.75f), PageCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    public void testSearchDevicesWithInvalidQueryOrCursor() {
+        assertThrows(InvalidInputPropertyException.class,
+                () -> deviceService.searchDevices(" ", null, null, null, null, null));
+        assertThrows(InvalidInputPropertyException.class,
+                () -> deviceService.searchDevices("x".repeat(DeviceService.MAX_QUERY_LENGTH + 1), null, null, null,
+                        null, null));
+        assertThrows(InvalidInputPropertyException.class,
+                () -> deviceService.searchDevices("dev", null, null, new PageCursor(3L).encode(), null, null));
+        assertThrows(InvalidInputPropertyException.class,
+                () -> deviceService.getDevices(null, null, new PageCursor(3L, 0.5f).encode(), null, null));
+    }
+
+    @Test
+    public void testExportDevices() {
+        DeviceEntity entity = getDeviceEntity(State.AVAILABLE);
+        doAnswer(invocation -> {
+            Consumer<DeviceEntity> action = invocation.getArgument(0);
+            action.accept(entity);
+            return null;
+        }).when(deviceRepository).forEachDevice(any());
+        when(deviceMapper.fromEntityToDeviceResponse(entity)).thenCallRealMethod();
+
+        List<DeviceResponse> exported = new ArrayList<>();
+        deviceService.exportDevices(exported::add);
+
+        assertEquals(1, exported.size());
+        assertDeviceResponse(exported.getFirst(), State.AVAILABLE);
+    }
+
+    @Test
+    public void testGetDeviceStatsIsCached() {
+        List<DeviceCount> counts = List.of(
+                new DeviceCount(DEVICE_BRAND, State.AVAILABLE, 3), new DeviceCount(DEVICE_BRAND, State.IN_USE, 1));
+        when(deviceRepository.countByBrandAndState()).thenReturn(counts);
+
+        assertEquals(counts, deviceService.getDeviceStats());
+        assertEquals(counts, deviceService.getDeviceStats());
+        verify(deviceRepository, times(1)).countByBrandAndState();
+    }
+
+    @Test
+    public void testGetDeviceStatsFromCounters() {
+        List<DeviceCount> counts = List.of(new DeviceCount(DEVICE_BRAND, State.AVAILABLE, 3));
+        when(deviceCounters.isEnabled()).thenReturn(true);
+        when(deviceCounters.snapshot()).thenReturn(Optional.of(counts));
+
+        assertEquals(counts, deviceService.getDeviceStats());
+        verify(deviceRepository, times(0)).countByBrandAndState();
+    }
+
+    @Test
+    public void testGetDeviceStatsQueriesUntilCountersAreLoaded() {
+        List<DeviceCount> counts = List.of(new DeviceCount(DEVICE_BRAND, State.AVAILABLE, 3));
+        when(deviceCounters.isEnabled()).thenReturn(true);
+        when(deviceCounters.snapshot()).thenReturn(Optional.empty());
+        when(deviceRepository.countByBrandAndState()).thenReturn(counts);
+
+        assertEquals(counts, deviceService.getDeviceStats());
+        verify(deviceRepository, times(1)).countByBrandAndState();
+    }
+
+    @Test
+    public void testLeaseDevice() {
+        DeviceEntity leased = getDeviceEntity(State.IN_USE);
+        when(deviceRepository.leaseIfAvailable(DEVICE_ID, LEASE_SECONDS)).thenReturn(Optional.of(leased));
+        when(deviceMapper.fromEntityToDeviceResponse(leased)).thenCallRealMethod();
+
+        assertDeviceResponse(deviceService.leaseDevice(DEVICE_ID), State.IN_USE);
+    }
+
+    @Test
+    public void testLeaseDeviceWhenNotAvailable() {
+        when(deviceRepository.leaseIfAvailable(DEVICE_ID, LEASE_SECONDS)).thenReturn(Optional.empty());
+        when(deviceRepository.existsById(DEVICE_ID)).thenReturn(true);
+        assertThrows(StateConflictException.class, () -> deviceService.leaseDevice(DEVICE_ID));
+    }
+
+    @Test
+    public void testLeaseDeviceWhenNotFound() {
+        when(deviceRepository.leaseIfAvailable(DEVICE_ID, LEASE_SECONDS)).thenReturn(Optional.empty());
+        when(deviceRepository.existsById(DEVICE_ID)).thenReturn(false);
+        assertThrows(ResourceNotFoundException.class, () -> deviceService.leaseDevice(DEVICE_ID));
+    }
+
+    @Test
+    public void testReleaseDeviceWhenNotInUse() {
+        when(deviceRepository.releaseIfInUse(DEVICE_ID)).thenReturn(Optional.empty());
+        when(deviceRepository.existsById(DEVICE_ID)).thenReturn(true);
+        assertThrows(StateConflictException.class, () -> deviceService.releaseDevice(DEVICE_ID));
+    }
+
+    @Test
+    public void testLeaseDevicesReturnsLeasedDevicesOrderedById() {
+        DeviceEntity second = new DeviceEntity(2L, "Device2", DEVICE_BRAND, State.IN_USE, CREATED_AT, 1L);
+        DeviceEntity first = getDeviceEntity(State.IN_USE);
+        when(deviceRepository.leaseAvailableByBrand(DEVICE_BRAND, 2, LEASE_SECONDS)).thenReturn(List.of(second, first));
+        when(deviceMapper.fromEntityToDeviceResponse(any(DeviceEntity.class))).thenCallRealMethod();
+
+        List<DeviceResponse> leased = deviceService.leaseDevices(DEVICE_BRAND, 2);
+
+        assertEquals(List.of(1L, 2L), leased.stream().map(DeviceResponse::id).toList());
+    }
+
+    @Test
+    public void testLeaseDevicesWithInvalidCount() {
+        assertThrows(InvalidInputPropertyException.class, () -> deviceService.leaseDevices(null, 0));
+        assertThrows(InvalidInputPropertyException.class,
+                () -> deviceService.leaseDevices(null, DeviceService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void testReleaseExpiredLeasesEvictsReleasedDevices() {
+        deviceCache.put(new DeviceResponse(DEVICE_ID, DEVICE_NAME, DEVICE_BRAND, State.IN_USE, null, DEVICE_VERSION));
+        when(deviceRepository.releaseExpiredLeases(10)).thenReturn(List.of(DEVICE_ID));
+
+        assertEquals(1, deviceService.releaseExpiredLeases(10));
+        verify(deviceCache).evictAll(List.of(DEVICE_ID));
     }
 
     private void assertDeviceResponse(DeviceResponse response, State state) {
@@ -305,11 +658,11 @@ public class DeviceServiceTests {
         assertEquals(DEVICE_ID, response.id());
         assertEquals(DEVICE_NAME, response.name());
         assertEquals(DEVICE_BRAND, response.brand());
-        assertEquals(state.getValue(), response.state());
+        assertEquals(state, response.state());
         assertEquals(CREATED_AT, response.createdAt().toInstant());
     }
 
     private DeviceEntity getDeviceEntity(State state) {
-        return new DeviceEntity(DEVICE_ID, DEVICE_NAME, DEVICE_BRAND, state.getValue(), CREATED_AT);
+        return new DeviceEntity(DEVICE_ID, DEVICE_NAME, DEVICE_BRAND, state, CREATED_AT, DEVICE_VERSION);
     }
 }